@@ -0,0 +1,82 @@
+package com.library.notification_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration for background work that must not run on listener or request threads
+ * With spring.threads.virtual.enabled (Java 21+), the pools run their tasks on virtual threads;
+ * pool sizes still cap concurrency, e.g. the number of open SMTP connections.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+    
+    /**
+     * Bounded worker pool for outbound email delivery
+     */
+    @Bean
+    public ThreadPoolTaskExecutor emailExecutor(
+            @Value("${notification.email.workers:4}") int workers,
+            @Value("${notification.email.queue-capacity:100000}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(virtualThreads);
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("email-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+    
+    /**
+     * Worker pool that writes queued Server-Sent Events to client connections
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamExecutor(
+            @Value("${notification.stream.workers:8}") int workers,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(virtualThreads);
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("sse-");
+        return executor;
+    }
+    
+    /**
+     * Single thread for long-running nightly upkeep (retention, dedup purge)
+     * Scheduled methods share one scheduler thread, so these jobs only hand their work to this
+     * pool and the frequent jobs such as the email poll and reminder tick keep running meanwhile.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor maintenanceExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(virtualThreads);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("maintenance-");
+        return executor;
+    }
+    
+    /**
+     * Single thread that reloads the user directory after it went stale
+     * Kept apart from the maintenance pool so that a reload never queues behind a nightly job.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor directoryExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(virtualThreads);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("directory-");
+        return executor;
+    }
+}
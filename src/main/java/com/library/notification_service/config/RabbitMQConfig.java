@@ -1,13 +1,21 @@
 package com.library.notification_service.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * RabbitMQ configuration for listening to booking events
  */
@@ -18,6 +26,10 @@ public class RabbitMQConfig {
     public static final String BOOKING_EXCHANGE = "booking.events";
     public static final String RESOURCE_EXCHANGE = "resource.events";
     public static final String POLICY_EXCHANGE = "policy.events";
+    public static final String NOTIFICATION_UPDATES_EXCHANGE = "notification.updates";
+    public static final String USER_EXCHANGE = "user.events";
+    public static final String RETRY_EXCHANGE = "notification.retry";
+    public static final String DEAD_LETTER_EXCHANGE = "notification.dead-letter";
     
     // Queue names
     public static final String BOOKING_CREATED_QUEUE = "booking.created";
@@ -30,6 +42,15 @@ public class RabbitMQConfig {
     public static final String POLICY_UPDATED_QUEUE = "notification.policy.updated";
     public static final String POLICY_DELETED_QUEUE = "notification.policy.deleted";
     
+    // Every queue consumed here gets a <queue>.retry and a <queue>.dlq companion
+    public static final List<String> CONSUMED_QUEUES = List.of(
+        BOOKING_CREATED_QUEUE, BOOKING_CANCELED_QUEUE, BOOKING_CHECKED_IN_QUEUE, BOOKING_NO_SHOW_QUEUE,
+        RESOURCE_CREATED_QUEUE, RESOURCE_DELETED_QUEUE,
+        POLICY_CREATED_QUEUE, POLICY_UPDATED_QUEUE, POLICY_DELETED_QUEUE
+    );
+    public static final String RETRY_QUEUE_SUFFIX = ".retry";
+    public static final String DEAD_LETTER_QUEUE_SUFFIX = ".dlq";
+    
     // Routing keys
     public static final String BOOKING_CREATED_ROUTING_KEY = "booking.created";
     public static final String BOOKING_CANCELED_ROUTING_KEY = "booking.canceled";
@@ -40,6 +61,11 @@ public class RabbitMQConfig {
     public static final String POLICY_CREATED_ROUTING_KEY = "policy.created";
     public static final String POLICY_UPDATED_ROUTING_KEY = "policy.updated";
     public static final String POLICY_DELETED_ROUTING_KEY = "policy.deleted";
+    public static final String USER_EVENTS_ROUTING_PATTERN = "user.*";
+    
+    // Listener container factories
+    public static final String BOOKING_BATCH_CONTAINER_FACTORY = "bookingBatchContainerFactory";
+    public static final String BROADCAST_CONTAINER_FACTORY = "broadcastContainerFactory";
     
     /**
      * Declare topic exchanges (if not exists)
@@ -182,6 +208,144 @@ public class RabbitMQConfig {
             .with(POLICY_DELETED_ROUTING_KEY);
     }
     
+    /**
+     * Fan out committed notification changes to every instance of this service.
+     * Each instance consumes through its own auto-deleted queue.
+     */
+    @Bean
+    public FanoutExchange notificationUpdatesExchange() {
+        return new FanoutExchange(NOTIFICATION_UPDATES_EXCHANGE, true, false);
+    }
+    
+    @Bean
+    public Queue notificationUpdatesQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("notification.updates."));
+    }
+    
+    @Bean
+    public Binding notificationUpdatesBinding() {
+        return BindingBuilder
+            .bind(notificationUpdatesQueue())
+            .to(notificationUpdatesExchange());
+    }
+    
+    /**
+     * User changes invalidate the cached user directory on every instance.
+     * Each instance consumes through its own auto-deleted queue.
+     */
+    @Bean
+    public TopicExchange userExchange() {
+        return new TopicExchange(USER_EXCHANGE, true, false);
+    }
+    
+    @Bean
+    public Queue userEventsQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("notification.user-events."));
+    }
+    
+    @Bean
+    public Binding userEventsBinding() {
+        return BindingBuilder
+            .bind(userEventsQueue())
+            .to(userExchange())
+            .with(USER_EVENTS_ROUTING_PATTERN);
+    }
+    
+    /**
+     * Retry and dead-letter topology for the consumed queues.
+     * A failed message is republished to the retry exchange with a per-message TTL; when it
+     * expires, <queue>.retry dead-letters it back onto the original queue through the default
+     * exchange. Messages that cannot succeed, or have used up their attempts, are parked in
+     * <queue>.dlq via the dead-letter exchange. The original queues keep their arguments, so
+     * they can be redeclared on an existing broker.
+     */
+    @Bean
+    public Declarables retryTopology() {
+        DirectExchange retryExchange = new DirectExchange(RETRY_EXCHANGE, true, false);
+        DirectExchange deadLetterExchange = new DirectExchange(DEAD_LETTER_EXCHANGE, true, false);
+        
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(retryExchange);
+        declarables.add(deadLetterExchange);
+        for (String queue : CONSUMED_QUEUES) {
+            Queue retryQueue = QueueBuilder.durable(queue + RETRY_QUEUE_SUFFIX)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(queue)
+                .build();
+            Queue deadLetterQueue = QueueBuilder.durable(queue + DEAD_LETTER_QUEUE_SUFFIX).build();
+            declarables.add(retryQueue);
+            declarables.add(deadLetterQueue);
+            declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange).with(queue));
+            declarables.add(BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with(queue));
+        }
+        return new Declarables(declarables);
+    }
+    
+    /**
+     * Container factory for the high-volume booking queues.
+     * Events are delivered to listeners in batches; a batch is closed when it reaches batch-size
+     * or no message arrives within receive-timeout, and is acknowledged as a whole.
+     * Consumers scale between concurrency and max-concurrency: one is added while existing
+     * consumers keep finding messages (the queue has depth) and idle ones are stopped again.
+     */
+    @Bean(BOOKING_BATCH_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory bookingBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${notification.rabbitmq.booking.batch-size:50}") int batchSize,
+            @Value("${notification.rabbitmq.booking.receive-timeout-ms:200}") long receiveTimeoutMs,
+            @Value("${notification.rabbitmq.booking.concurrency:2}") int concurrency,
+            @Value("${notification.rabbitmq.booking.max-concurrency:8}") int maxConcurrency,
+            @Value("${notification.rabbitmq.booking.prefetch:250}") int prefetch,
+            MessageBatchRecoverer failedMessageRecoverer) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setConsecutiveActiveTrigger(10);
+        factory.setConsecutiveIdleTrigger(10);
+        factory.setStartConsumerMinInterval(5000L);
+        factory.setStopConsumerMinInterval(30000L);
+        // Listeners isolate failing events themselves; this only catches a batch that fails outright
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+            .maxAttempts(1)
+            .recoverer(failedMessageRecoverer)
+            .build());
+        return factory;
+    }
+    
+    /**
+     * Container factory for the resource and policy queues.
+     * Every message fans out to all users, so each instance runs a single consumer that
+     * prefetches one message at a time; with exclusive set, only one instance consumes at all
+     * and the others stand by.
+     */
+    @Bean(BROADCAST_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory broadcastContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${notification.rabbitmq.broadcast.prefetch:1}") int prefetch,
+            @Value("${notification.rabbitmq.broadcast.exclusive:false}") boolean exclusive,
+            MessageBatchRecoverer failedMessageRecoverer) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setPrefetchCount(prefetch);
+        factory.setExclusive(exclusive);
+        // Failures go to the retry queue instead of being requeued in place
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+            .maxAttempts(1)
+            .recoverer(failedMessageRecoverer)
+            .build());
+        return factory;
+    }
+    
     /**
      * JSON message converter
      */
@@ -0,0 +1,62 @@
+package com.library.notification_service.controller;
+
+import com.library.common.security.annotation.RequiresRole;
+import com.library.notification_service.dto.DeadLetterMessage;
+import com.library.notification_service.service.DeadLetterService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin endpoints for messages that exhausted their retries
+ * Uses AOP annotations for RBAC authorization
+ */
+@RestController
+@RequestMapping("/api/notifications/admin/dead-letters")
+public class DeadLetterController {
+    
+    private final DeadLetterService deadLetterService;
+    
+    public DeadLetterController(DeadLetterService deadLetterService) {
+        this.deadLetterService = deadLetterService;
+    }
+    
+    /**
+     * Get the number of dead-lettered messages per queue
+     * GET /api/notifications/admin/dead-letters
+     * Authorization: ADMIN
+     */
+    @GetMapping
+    @RequiresRole("ADMIN")
+    public ResponseEntity<Map<String, Integer>> getCounts() {
+        return ResponseEntity.ok(deadLetterService.getCounts());
+    }
+    
+    /**
+     * Inspect the oldest dead-lettered messages of a queue without removing them
+     * GET /api/notifications/admin/dead-letters/{queue}?limit={limit}
+     * Authorization: ADMIN
+     */
+    @GetMapping("/{queue}")
+    @RequiresRole("ADMIN")
+    public ResponseEntity<List<DeadLetterMessage>> peek(@PathVariable String queue,
+                                                        @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(deadLetterService.peek(queue, limit));
+    }
+    
+    /**
+     * Move dead-lettered messages back onto their original queue
+     * POST /api/notifications/admin/dead-letters/{queue}/replay?limit={limit}
+     * Authorization: ADMIN
+     * Returns the number of messages that were replayed
+     */
+    @PostMapping("/{queue}/replay")
+    @RequiresRole("ADMIN")
+    public ResponseEntity<Map<String, Integer>> replay(@PathVariable String queue,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        int replayed = deadLetterService.replay(queue, limit);
+        return ResponseEntity.ok(Map.of("replayed", replayed));
+    }
+}
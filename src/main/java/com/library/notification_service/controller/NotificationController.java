@@ -1,12 +1,18 @@
 package com.library.notification_service.controller;
 
+import com.library.notification_service.dto.NotificationPage;
+import com.library.notification_service.dto.NotificationPreference;
 import com.library.notification_service.dto.NotificationResponse;
 import com.library.common.security.annotation.RequiresOwnership;
 import com.library.common.security.annotation.RequiresRole;
 import com.library.notification_service.security.annotation.RequiresNotificationOwnership;
+import com.library.notification_service.service.NotificationPreferenceService;
 import com.library.notification_service.service.NotificationService;
+import com.library.notification_service.service.NotificationStreamRegistry;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -20,25 +26,51 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamRegistry streamRegistry;
+    private final NotificationPreferenceService preferenceService;
 
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService,
+                                  NotificationStreamRegistry streamRegistry,
+                                  NotificationPreferenceService preferenceService) {
         this.notificationService = notificationService;
+        this.streamRegistry = streamRegistry;
+        this.preferenceService = preferenceService;
     }
 
     /**
      * Get notifications by user ID
-     * GET /api/notifications/user/{userId}
+     * GET /api/notifications/user/{userId}?history={true|false}
+     * Only recent notifications are returned unless history=true
      * Authorization: AUTHENTICATED
      * Resource Ownership: Users can only view their own notifications, Admins can
      * view any
      */
     @GetMapping("/user/{userId}")
     @RequiresOwnership(resourceIdParam = "userId")
-    public ResponseEntity<List<NotificationResponse>> getNotificationsByUserId(@PathVariable Long userId) {
-        List<NotificationResponse> notifications = notificationService.getNotificationsByUserId(userId);
+    public ResponseEntity<List<NotificationResponse>> getNotificationsByUserId(@PathVariable Long userId,
+                                                                               @RequestParam(defaultValue = "false") boolean history) {
+        List<NotificationResponse> notifications = notificationService.getNotificationsByUserId(userId, history);
         return ResponseEntity.ok(notifications);
     }
 
+    /**
+     * Get a page of notification summaries by user ID, newest first
+     * GET /api/notifications/user/{userId}/page?before={createdAt,id}&limit={limit}&history={true|false}
+     * Only recent notifications are paged through unless history=true
+     * Authorization: AUTHENTICATED
+     * Resource Ownership: Users can only view their own notifications, Admins can
+     * view any
+     */
+    @GetMapping("/user/{userId}/page")
+    @RequiresOwnership(resourceIdParam = "userId")
+    public ResponseEntity<NotificationPage> getNotificationPage(@PathVariable Long userId,
+                                                                @RequestParam(required = false) String before,
+                                                                @RequestParam(defaultValue = "20") int limit,
+                                                                @RequestParam(defaultValue = "false") boolean history) {
+        NotificationPage page = notificationService.getNotificationPage(userId, before, limit, history);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Get unread notifications by user ID
      * GET /api/notifications/user/{userId}/unread
@@ -66,6 +98,20 @@ public class NotificationController {
         return ResponseEntity.ok(Map.of("count", count));
     }
 
+    /**
+     * Stream new notifications and unread count changes as Server-Sent Events
+     * GET /api/notifications/user/{userId}/stream
+     * Events: "notification" (NotificationResponse), "unread-count" ({"count": n})
+     * Authorization: AUTHENTICATED
+     * Resource Ownership: Users can only stream their own notifications, Admins can
+     * stream any
+     */
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @RequiresOwnership(resourceIdParam = "userId")
+    public SseEmitter streamNotifications(@PathVariable Long userId) {
+        return streamRegistry.subscribe(userId);
+    }
+
     /**
      * Mark notification as read
      * PUT /api/notifications/{id}/read
@@ -81,19 +127,81 @@ public class NotificationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Mark a broadcast as read for a user
+     * PUT /api/notifications/user/{userId}/broadcasts/{broadcastId}/read
+     * Authorization: AUTHENTICATED
+     * Resource Ownership: Users can only mark broadcasts as read for themselves,
+     * Admins can mark any
+     */
+    @PutMapping("/user/{userId}/broadcasts/{broadcastId}/read")
+    @RequiresRole
+    @RequiresOwnership(resourceIdParam = "userId")
+    public ResponseEntity<NotificationResponse> markBroadcastAsRead(@PathVariable Long userId,
+                                                                    @PathVariable Long broadcastId) {
+        NotificationResponse response = notificationService.markBroadcastAsRead(userId, broadcastId);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Dismiss a broadcast so it no longer appears in a user's notifications
+     * PUT /api/notifications/user/{userId}/broadcasts/{broadcastId}/dismiss
+     * Authorization: AUTHENTICATED
+     * Resource Ownership: Users can only dismiss broadcasts for themselves,
+     * Admins can dismiss any
+     */
+    @PutMapping("/user/{userId}/broadcasts/{broadcastId}/dismiss")
+    @RequiresRole
+    @RequiresOwnership(resourceIdParam = "userId")
+    public ResponseEntity<Void> dismissBroadcast(@PathVariable Long userId, @PathVariable Long broadcastId) {
+        notificationService.dismissBroadcast(userId, broadcastId);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Mark all notifications as read for a user
      * PUT /api/notifications/user/{userId}/read-all
      * Authorization: AUTHENTICATED
      * Resource Ownership: Users can only mark their own notifications as read,
      * Admins can mark any
+     * Returns the number of notifications that were marked as read
      */
     @PutMapping("/user/{userId}/read-all")
     @RequiresRole
     @RequiresOwnership(resourceIdParam = "userId")
-    public ResponseEntity<Void> markAllAsRead(@PathVariable Long userId) {
-        notificationService.markAllAsRead(userId);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Map<String, Integer>> markAllAsRead(@PathVariable Long userId) {
+        int updated = notificationService.markAllAsRead(userId);
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    /**
+     * Get a user's notification preferences for every type and channel
+     * GET /api/notifications/user/{userId}/preferences
+     * Authorization: AUTHENTICATED
+     * Resource Ownership: Users can only view their own preferences, Admins can
+     * view any
+     */
+    @GetMapping("/user/{userId}/preferences")
+    @RequiresOwnership(resourceIdParam = "userId")
+    public ResponseEntity<List<NotificationPreference>> getPreferences(@PathVariable Long userId) {
+        return ResponseEntity.ok(preferenceService.getPreferences(userId));
+    }
+
+    /**
+     * Change some of a user's notification preferences
+     * PUT /api/notifications/user/{userId}/preferences
+     * Body: [{"type": "RESOURCE_CREATED", "channel": "EMAIL", "enabled": false}, ...]
+     * Authorization: AUTHENTICATED
+     * Resource Ownership: Users can only change their own preferences, Admins can
+     * change any
+     * Returns the user's preferences for every type and channel
+     */
+    @PutMapping("/user/{userId}/preferences")
+    @RequiresRole
+    @RequiresOwnership(resourceIdParam = "userId")
+    public ResponseEntity<List<NotificationPreference>> updatePreferences(@PathVariable Long userId,
+                                                                          @RequestBody List<NotificationPreference> preferences) {
+        return ResponseEntity.ok(preferenceService.updatePreferences(userId, preferences));
     }
 
     /**
@@ -0,0 +1,86 @@
+package com.library.notification_service.dto;
+
+/**
+ * A message parked in a dead-letter queue, as shown to administrators
+ */
+public class DeadLetterMessage {
+    
+    private String queue;
+    private String messageId;
+    private Integer retryCount;
+    private String exceptionType;
+    private String exceptionMessage;
+    private String failedAt;
+    private String body;
+    
+    // Constructors
+    public DeadLetterMessage() {}
+    
+    public DeadLetterMessage(String queue, String messageId, Integer retryCount, String exceptionType,
+                             String exceptionMessage, String failedAt, String body) {
+        this.queue = queue;
+        this.messageId = messageId;
+        this.retryCount = retryCount;
+        this.exceptionType = exceptionType;
+        this.exceptionMessage = exceptionMessage;
+        this.failedAt = failedAt;
+        this.body = body;
+    }
+    
+    // Getters and Setters
+    public String getQueue() {
+        return queue;
+    }
+    
+    public void setQueue(String queue) {
+        this.queue = queue;
+    }
+    
+    public String getMessageId() {
+        return messageId;
+    }
+    
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+    
+    public Integer getRetryCount() {
+        return retryCount;
+    }
+    
+    public void setRetryCount(Integer retryCount) {
+        this.retryCount = retryCount;
+    }
+    
+    public String getExceptionType() {
+        return exceptionType;
+    }
+    
+    public void setExceptionType(String exceptionType) {
+        this.exceptionType = exceptionType;
+    }
+    
+    public String getExceptionMessage() {
+        return exceptionMessage;
+    }
+    
+    public void setExceptionMessage(String exceptionMessage) {
+        this.exceptionMessage = exceptionMessage;
+    }
+    
+    public String getFailedAt() {
+        return failedAt;
+    }
+    
+    public void setFailedAt(String failedAt) {
+        this.failedAt = failedAt;
+    }
+    
+    public String getBody() {
+        return body;
+    }
+    
+    public void setBody(String body) {
+        this.body = body;
+    }
+}
@@ -0,0 +1,38 @@
+package com.library.notification_service.dto;
+
+import java.util.List;
+
+/**
+ * One page of notification summaries, newest first.
+ * nextCursor is passed back as the "before" parameter and is null on the last page.
+ */
+public class NotificationPage {
+    
+    private List<NotificationSummary> items;
+    private String nextCursor;
+    
+    // Constructors
+    public NotificationPage() {}
+    
+    public NotificationPage(List<NotificationSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<NotificationSummary> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<NotificationSummary> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
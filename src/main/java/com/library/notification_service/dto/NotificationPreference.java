@@ -0,0 +1,48 @@
+package com.library.notification_service.dto;
+
+import com.library.notification_service.entity.DeliveryChannel;
+import com.library.notification_service.entity.NotificationType;
+
+/**
+ * DTO for whether a user receives a notification type over a channel
+ */
+public class NotificationPreference {
+    
+    private NotificationType type;
+    private DeliveryChannel channel;
+    private boolean enabled;
+    
+    // Constructors
+    public NotificationPreference() {}
+    
+    public NotificationPreference(NotificationType type, DeliveryChannel channel, boolean enabled) {
+        this.type = type;
+        this.channel = channel;
+        this.enabled = enabled;
+    }
+    
+    // Getters and Setters
+    public NotificationType getType() {
+        return type;
+    }
+    
+    public void setType(NotificationType type) {
+        this.type = type;
+    }
+    
+    public DeliveryChannel getChannel() {
+        return channel;
+    }
+    
+    public void setChannel(DeliveryChannel channel) {
+        this.channel = channel;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
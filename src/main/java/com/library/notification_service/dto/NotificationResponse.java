@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 
 /**
  * DTO for notification response
+ * Fan-out-on-read broadcasts have no notification id; they carry broadcastId instead.
  */
 public class NotificationResponse {
     
@@ -17,6 +18,7 @@ public class NotificationResponse {
     private Boolean isRead;
     private Boolean emailSent;
     private LocalDateTime createdAt;
+    private Long broadcastId;
     
     // Constructors
     public NotificationResponse() {}
@@ -34,6 +36,22 @@ public class NotificationResponse {
         this.createdAt = createdAt;
     }
     
+    /**
+     * Convert Notification entity to NotificationResponse DTO, with text resolved from shared content
+     */
+    public static NotificationResponse fromNotification(Notification notification, String title, String message) {
+        return new NotificationResponse(
+            notification.getId(),
+            notification.getUserId(),
+            notification.getType(),
+            title,
+            message,
+            notification.getIsRead(),
+            notification.getEmailSent(),
+            notification.getCreatedAt()
+        );
+    }
+    
     /**
      * Convert Notification entity to NotificationResponse DTO
      */
@@ -50,6 +68,18 @@ public class NotificationResponse {
         );
     }
     
+    /**
+     * Build the response for a fan-out-on-read broadcast as seen by one user
+     */
+    public static NotificationResponse fromBroadcast(Long broadcastId, Long userId, NotificationType type,
+                                                     String title, String message, Boolean isRead,
+                                                     LocalDateTime createdAt) {
+        NotificationResponse response = new NotificationResponse(null, userId, type, title, message, isRead,
+                                                                 null, createdAt);
+        response.setBroadcastId(broadcastId);
+        return response;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -114,6 +144,14 @@ public class NotificationResponse {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+    
+    public Long getBroadcastId() {
+        return broadcastId;
+    }
+    
+    public void setBroadcastId(Long broadcastId) {
+        this.broadcastId = broadcastId;
+    }
 }
 
 
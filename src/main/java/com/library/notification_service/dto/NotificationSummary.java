@@ -0,0 +1,79 @@
+package com.library.notification_service.dto;
+
+import com.library.notification_service.entity.NotificationType;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight notification projection for listings (no message body)
+ */
+public class NotificationSummary {
+    
+    private Long id;
+    private Long userId;
+    private NotificationType type;
+    private String title;
+    private Boolean isRead;
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public NotificationSummary() {}
+    
+    public NotificationSummary(Long id, Long userId, NotificationType type, String title,
+                               Boolean isRead, LocalDateTime createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.type = type;
+        this.title = title;
+        this.isRead = isRead;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public NotificationType getType() {
+        return type;
+    }
+    
+    public void setType(NotificationType type) {
+        this.type = type;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public Boolean getIsRead() {
+        return isRead;
+    }
+    
+    public void setIsRead(Boolean isRead) {
+        this.isRead = isRead;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,136 @@
+package com.library.notification_service.dto;
+
+import com.library.notification_service.entity.BroadcastAudience;
+import com.library.notification_service.entity.NotificationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed change to a user's notifications, fanned out to every service instance.
+ * Carries either a newly created notification or a number of notifications marked as read.
+ * A fan-out-on-read broadcast has no user but an audience instead. So has a fan-out-on-write
+ * broadcast, which also names its shared content; its notification carries only type and
+ * creation time, and each instance looks up the rows of its own connected users.
+ * A preferences change carries neither; it tells instances to reload the user's preferences.
+ * changedAt is a time taken before the change committed, for caches to tell whether a count
+ * they loaded can already include it.
+ */
+public class NotificationUpdate {
+    
+    private Long userId;
+    private NotificationResponse notification;
+    private long readCount;
+    private boolean allRead;
+    private BroadcastAudience audience;
+    private boolean preferencesChanged;
+    private Long contentId;
+    private LocalDateTime changedAt;
+    
+    // Constructors
+    public NotificationUpdate() {}
+    
+    public NotificationUpdate(Long userId, NotificationResponse notification, long readCount, boolean allRead) {
+        this.userId = userId;
+        this.notification = notification;
+        this.readCount = readCount;
+        this.allRead = allRead;
+    }
+    
+    public static NotificationUpdate created(NotificationResponse notification) {
+        NotificationUpdate update = new NotificationUpdate(notification.getUserId(), notification, 0, false);
+        update.setChangedAt(notification.getCreatedAt());
+        return update;
+    }
+    
+    public static NotificationUpdate broadcast(NotificationResponse notification, BroadcastAudience audience) {
+        NotificationUpdate update = new NotificationUpdate(null, notification, 0, false);
+        update.setAudience(audience);
+        update.setChangedAt(notification.getCreatedAt());
+        return update;
+    }
+    
+    public static NotificationUpdate sharedBroadcast(Long contentId, NotificationType type,
+                                                     BroadcastAudience audience, LocalDateTime createdAt) {
+        NotificationUpdate update = broadcast(
+            new NotificationResponse(null, null, type, null, null, false, false, createdAt), audience);
+        update.setContentId(contentId);
+        return update;
+    }
+    
+    public static NotificationUpdate read(Long userId, long readCount, boolean allRead, LocalDateTime changedAt) {
+        NotificationUpdate update = new NotificationUpdate(userId, null, readCount, allRead);
+        update.setChangedAt(changedAt);
+        return update;
+    }
+    
+    public static NotificationUpdate preferencesChanged(Long userId) {
+        NotificationUpdate update = new NotificationUpdate(userId, null, 0, false);
+        update.setPreferencesChanged(true);
+        return update;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public NotificationResponse getNotification() {
+        return notification;
+    }
+    
+    public void setNotification(NotificationResponse notification) {
+        this.notification = notification;
+    }
+    
+    public long getReadCount() {
+        return readCount;
+    }
+    
+    public void setReadCount(long readCount) {
+        this.readCount = readCount;
+    }
+    
+    public boolean isAllRead() {
+        return allRead;
+    }
+    
+    public void setAllRead(boolean allRead) {
+        this.allRead = allRead;
+    }
+    
+    public BroadcastAudience getAudience() {
+        return audience;
+    }
+    
+    public void setAudience(BroadcastAudience audience) {
+        this.audience = audience;
+    }
+    
+    public boolean isPreferencesChanged() {
+        return preferencesChanged;
+    }
+    
+    public void setPreferencesChanged(boolean preferencesChanged) {
+        this.preferencesChanged = preferencesChanged;
+    }
+    
+    public Long getContentId() {
+        return contentId;
+    }
+    
+    public void setContentId(Long contentId) {
+        this.contentId = contentId;
+    }
+    
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+    
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.library.notification_service.dto;
+
+import java.util.List;
+
+/**
+ * Message published on the notification updates exchange
+ */
+public class NotificationUpdateBatch {
+    
+    private List<NotificationUpdate> updates;
+    
+    // Constructors
+    public NotificationUpdateBatch() {}
+    
+    public NotificationUpdateBatch(List<NotificationUpdate> updates) {
+        this.updates = updates;
+    }
+    
+    // Getters and Setters
+    public List<NotificationUpdate> getUpdates() {
+        return updates;
+    }
+    
+    public void setUpdates(List<NotificationUpdate> updates) {
+        this.updates = updates;
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.notification_service.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A notification published once for an audience rather than stored per recipient.
+ * Merged into the notifications of every user in the audience when they are read;
+ * per-user read state lives in broadcast_receipts.
+ */
+@Entity
+@Table(name = "broadcasts")
+public class Broadcast {
+    
+    /**
+     * Ids handed out per sequence call; must match the increment of broadcasts_seq
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "broadcasts_seq")
+    @SequenceGenerator(name = "broadcasts_seq", sequenceName = "broadcasts_seq",
+                       allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+    
+    @Column(name = "content_id", nullable = false)
+    private Long contentId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private BroadcastAudience audience;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public Broadcast() {}
+    
+    public Broadcast(NotificationType type, Long contentId, BroadcastAudience audience, LocalDateTime createdAt) {
+        this.type = type;
+        this.contentId = contentId;
+        this.audience = audience;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public NotificationType getType() {
+        return type;
+    }
+    
+    public void setType(NotificationType type) {
+        this.type = type;
+    }
+    
+    public Long getContentId() {
+        return contentId;
+    }
+    
+    public void setContentId(Long contentId) {
+        this.contentId = contentId;
+    }
+    
+    public BroadcastAudience getAudience() {
+        return audience;
+    }
+    
+    public void setAudience(BroadcastAudience audience) {
+        this.audience = audience;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.notification_service.entity;
+
+/**
+ * Enum for the users a broadcast is shown to
+ */
+public enum BroadcastAudience {
+    ALL,
+    NON_ADMIN;
+    
+    public boolean includes(boolean admin) {
+        return this == ALL || !admin;
+    }
+}
@@ -0,0 +1,10 @@
+package com.library.notification_service.entity;
+
+/**
+ * Enum for notification delivery channels
+ * IN_APP is the stored notification itself; only EMAIL goes through the delivery outbox.
+ */
+public enum DeliveryChannel {
+    EMAIL,
+    IN_APP
+}
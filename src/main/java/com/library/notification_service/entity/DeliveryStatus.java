@@ -0,0 +1,10 @@
+package com.library.notification_service.entity;
+
+/**
+ * Enum for outbox delivery states
+ */
+public enum DeliveryStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
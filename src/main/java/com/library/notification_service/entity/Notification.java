@@ -5,13 +5,23 @@ import java.time.LocalDateTime;
 
 /**
  * Entity representing a notification
+ * Broadcast notifications leave title and message empty and reference shared NotificationContent.
+ * The table is partitioned by month on created_at, so its primary key is (id, created_at); ids
+ * come from notifications_seq and are unique on their own.
  */
 @Entity
 @Table(name = "notifications")
 public class Notification {
     
+    /**
+     * Ids handed out per sequence call; must match the increment of notifications_seq
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_seq")
+    @SequenceGenerator(name = "notifications_seq", sequenceName = "notifications_seq",
+                       allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(name = "user_id", nullable = false)
@@ -21,12 +31,14 @@ public class Notification {
     @Column(nullable = false)
     private NotificationType type;
     
-    @Column(nullable = false)
     private String title;
     
-    @Column(nullable = false, columnDefinition = "TEXT")
+    @Column(columnDefinition = "TEXT")
     private String message;
     
+    @Column(name = "content_id")
+    private Long contentId;
+    
     @Column(name = "is_read", nullable = false)
     private Boolean isRead = false;
     
@@ -92,6 +104,14 @@ public class Notification {
         this.message = message;
     }
     
+    public Long getContentId() {
+        return contentId;
+    }
+    
+    public void setContentId(Long contentId) {
+        this.contentId = contentId;
+    }
+    
     public Boolean getIsRead() {
         return isRead;
     }
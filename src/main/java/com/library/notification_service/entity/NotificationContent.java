@@ -0,0 +1,74 @@
+package com.library.notification_service.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Title and message shared by every notification of one broadcast.
+ * Written once per broadcast; per-user notification rows reference it by content_id.
+ */
+@Entity
+@Table(name = "notification_contents")
+public class NotificationContent {
+    
+    /**
+     * Ids handed out per sequence call; must match the increment of notification_contents_seq
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_contents_seq")
+    @SequenceGenerator(name = "notification_contents_seq", sequenceName = "notification_contents_seq",
+                       allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String title;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public NotificationContent() {}
+    
+    public NotificationContent(String title, String message) {
+        this.title = title;
+        this.message = message;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,175 @@
+package com.library.notification_service.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outbox entry for delivering a notification over an external channel.
+ * Written in the same transaction as the notification and drained by EmailDispatcher.
+ * Deliveries of fan-out-on-read broadcasts reference the broadcast instead of a notification.
+ */
+@Entity
+@Table(name = "notification_deliveries")
+public class NotificationDelivery {
+    
+    /**
+     * Ids handed out per sequence call; must match the increment of notification_deliveries_seq
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_deliveries_seq")
+    @SequenceGenerator(name = "notification_deliveries_seq", sequenceName = "notification_deliveries_seq",
+                       allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+    
+    @Column(name = "notification_id")
+    private Long notificationId;
+    
+    @Column(name = "broadcast_id")
+    private Long broadcastId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private DeliveryChannel channel;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private DeliveryStatus status = DeliveryStatus.PENDING;
+    
+    @Column(name = "attempt_count", nullable = false)
+    private Integer attemptCount = 0;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    // Set while a dispatcher holds the delivery, cleared when it is sent or put back
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+    
+    // Constructors
+    public NotificationDelivery() {}
+    
+    public NotificationDelivery(Long notificationId, Long userId, DeliveryChannel channel) {
+        this.notificationId = notificationId;
+        this.userId = userId;
+        this.channel = channel;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getNotificationId() {
+        return notificationId;
+    }
+    
+    public void setNotificationId(Long notificationId) {
+        this.notificationId = notificationId;
+    }
+    
+    public Long getBroadcastId() {
+        return broadcastId;
+    }
+    
+    public void setBroadcastId(Long broadcastId) {
+        this.broadcastId = broadcastId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public DeliveryChannel getChannel() {
+        return channel;
+    }
+    
+    public void setChannel(DeliveryChannel channel) {
+        this.channel = channel;
+    }
+    
+    public DeliveryStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(DeliveryStatus status) {
+        this.status = status;
+    }
+    
+    public Integer getAttemptCount() {
+        return attemptCount;
+    }
+    
+    public void setAttemptCount(Integer attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+    
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+    
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+    
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+    
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
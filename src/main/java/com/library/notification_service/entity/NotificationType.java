@@ -8,6 +8,7 @@ public enum NotificationType {
     BOOKING_REMINDER,
     BOOKING_CANCELED,
     CHECK_IN_REMINDER,
+    CHECK_IN_CONFIRMED,
     NO_SHOW_ALERT,
     RESOURCE_CREATED,
     RESOURCE_DELETED,
@@ -0,0 +1,27 @@
+package com.library.notification_service.event;
+
+import com.library.notification_service.dto.NotificationResponse;
+import com.library.notification_service.entity.BroadcastAudience;
+
+/**
+ * Published when a fan-out-on-read broadcast has been persisted.
+ * The notification carries the broadcast id and text but no recipient.
+ */
+public class BroadcastCreatedEvent {
+    
+    private final NotificationResponse notification;
+    private final BroadcastAudience audience;
+    
+    public BroadcastCreatedEvent(NotificationResponse notification, BroadcastAudience audience) {
+        this.notification = notification;
+        this.audience = audience;
+    }
+    
+    public NotificationResponse getNotification() {
+        return notification;
+    }
+    
+    public BroadcastAudience getAudience() {
+        return audience;
+    }
+}
@@ -0,0 +1,43 @@
+package com.library.notification_service.event;
+
+import com.library.notification_service.entity.BroadcastAudience;
+import com.library.notification_service.entity.NotificationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published once every chunk of a fan-out-on-write broadcast has been written.
+ * All of its rows share the content, type and creation time, so these identify them for every
+ * recipient without listing the recipients or repeating the text.
+ */
+public class BroadcastNotificationsCreatedEvent {
+    
+    private final Long contentId;
+    private final NotificationType type;
+    private final BroadcastAudience audience;
+    private final LocalDateTime createdAt;
+    
+    public BroadcastNotificationsCreatedEvent(Long contentId, NotificationType type,
+                                              BroadcastAudience audience, LocalDateTime createdAt) {
+        this.contentId = contentId;
+        this.type = type;
+        this.audience = audience;
+        this.createdAt = createdAt;
+    }
+    
+    public Long getContentId() {
+        return contentId;
+    }
+    
+    public NotificationType getType() {
+        return type;
+    }
+    
+    public BroadcastAudience getAudience() {
+        return audience;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
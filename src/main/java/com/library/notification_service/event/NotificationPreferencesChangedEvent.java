@@ -0,0 +1,17 @@
+package com.library.notification_service.event;
+
+/**
+ * Published when a user has changed their notification preferences
+ */
+public class NotificationPreferencesChangedEvent {
+    
+    private final Long userId;
+    
+    public NotificationPreferencesChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,22 @@
+package com.library.notification_service.event;
+
+import com.library.notification_service.entity.Notification;
+
+import java.util.List;
+
+/**
+ * Published when notifications have been persisted.
+ * Listeners that need committed data should use @TransactionalEventListener.
+ */
+public class NotificationsCreatedEvent {
+    
+    private final List<Notification> notifications;
+    
+    public NotificationsCreatedEvent(List<Notification> notifications) {
+        this.notifications = notifications;
+    }
+    
+    public List<Notification> getNotifications() {
+        return notifications;
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.notification_service.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when unread notifications of a user have been marked as read.
+ * allRead is set when every notification of the user is now read.
+ * changedAt is taken when the event is created, inside the transaction, so it is never later than the commit.
+ */
+public class NotificationsReadEvent {
+    
+    private final Long userId;
+    private final long readCount;
+    private final boolean allRead;
+    private final LocalDateTime changedAt;
+    
+    public NotificationsReadEvent(Long userId, long readCount, boolean allRead) {
+        this.userId = userId;
+        this.readCount = readCount;
+        this.allRead = allRead;
+        this.changedAt = LocalDateTime.now();
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public long getReadCount() {
+        return readCount;
+    }
+    
+    public boolean isAllRead() {
+        return allRead;
+    }
+    
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
@@ -1,16 +1,38 @@
 package com.library.notification_service.listener;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.library.notification_service.config.RabbitMQConfig;
 import com.library.notification_service.dto.BookingEvent;
 import com.library.notification_service.entity.NotificationType;
+import com.library.notification_service.service.NotificationDraft;
 import com.library.notification_service.service.NotificationService;
+import com.library.notification_service.service.NotificationTemplateRegistry;
+import com.library.notification_service.service.NotificationTemplateRegistry.BookingParameters;
+import com.library.notification_service.service.ReminderScheduler;
+import com.library.notification_service.service.RenderedNotification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConversionException;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
 /**
  * RabbitMQ listener for booking events
+ * Events are consumed in batches; each batch is persisted in one transaction and acknowledged together.
+ * If the batch fails, its events are retried one at a time so that a single bad event only sends
+ * itself to the retry or dead-letter queue.
+ * Events also schedule or cancel the booking's reminders, in the transaction that records them as
+ * processed, so a redelivered event changes nothing and a failed reminder update is retried with
+ * its event. A creation that arrives after its cancellation finds the cancellation recorded.
  */
 @Component
 public class BookingEventListener {
@@ -18,126 +40,152 @@ public class BookingEventListener {
     private static final Logger logger = LoggerFactory.getLogger(BookingEventListener.class);
     
     private final NotificationService notificationService;
+    private final FailedMessageRecoverer failedMessageRecoverer;
+    private final ObjectMapper objectMapper;
+    private final NotificationTemplateRegistry templateRegistry;
+    private final ReminderScheduler reminderScheduler;
     
-    public BookingEventListener(NotificationService notificationService) {
+    public BookingEventListener(NotificationService notificationService,
+                                FailedMessageRecoverer failedMessageRecoverer,
+                                ObjectMapper objectMapper,
+                                NotificationTemplateRegistry templateRegistry,
+                                ReminderScheduler reminderScheduler) {
         this.notificationService = notificationService;
+        this.failedMessageRecoverer = failedMessageRecoverer;
+        this.objectMapper = objectMapper;
+        this.templateRegistry = templateRegistry;
+        this.reminderScheduler = reminderScheduler;
     }
     
     /**
      * Listen to booking.created events
      */
-    @RabbitListener(queues = RabbitMQConfig.BOOKING_CREATED_QUEUE)
-    public void handleBookingCreated(BookingEvent event) {
-        logger.info("Received booking.created event for booking: {}", event.getId());
-        
-        String title = "Booking Confirmed";
-        String message = String.format(
-            "Your booking has been confirmed!\n\n" +
-            "Booking ID: %d\n" +
-            "Resource ID: %d\n" +
-            "Start Time: %s\n" +
-            "End Time: %s\n" +
-            "QR Code: %s\n\n" +
-            "Please arrive on time and use your QR code for check-in.",
-            event.getId(),
-            event.getResourceId(),
-            event.getStartTime(),
-            event.getEndTime(),
-            event.getQrCode()
-        );
-        
-        notificationService.createNotification(
-            event.getUserId(),
-            NotificationType.BOOKING_CONFIRMED,
-            title,
-            message
-        );
+    @RabbitListener(queues = RabbitMQConfig.BOOKING_CREATED_QUEUE,
+                    containerFactory = RabbitMQConfig.BOOKING_BATCH_CONTAINER_FACTORY)
+    public void handleBookingCreated(List<Message> messages) {
+        logger.info("Received {} booking.created events", messages.size());
+        createNotifications(messages, NotificationType.BOOKING_CONFIRMED, RabbitMQConfig.BOOKING_CREATED_ROUTING_KEY,
+                            reminderScheduler::schedule);
     }
     
     /**
      * Listen to booking.canceled events
      */
-    @RabbitListener(queues = RabbitMQConfig.BOOKING_CANCELED_QUEUE)
-    public void handleBookingCanceled(BookingEvent event) {
-        logger.info("Received booking.canceled event for booking: {}", event.getId());
-        
-        String title = "Booking Canceled";
-        String message = String.format(
-            "Your booking has been canceled.\n\n" +
-            "Booking ID: %d\n" +
-            "Resource ID: %d\n" +
-            "Original Time: %s to %s",
-            event.getId(),
-            event.getResourceId(),
-            event.getStartTime(),
-            event.getEndTime()
-        );
-        
-        notificationService.createNotification(
-            event.getUserId(),
-            NotificationType.BOOKING_CANCELED,
-            title,
-            message
-        );
+    @RabbitListener(queues = RabbitMQConfig.BOOKING_CANCELED_QUEUE,
+                    containerFactory = RabbitMQConfig.BOOKING_BATCH_CONTAINER_FACTORY)
+    public void handleBookingCanceled(List<Message> messages) {
+        logger.info("Received {} booking.canceled events", messages.size());
+        createNotifications(messages, NotificationType.BOOKING_CANCELED, RabbitMQConfig.BOOKING_CANCELED_ROUTING_KEY,
+                            reminderScheduler::cancel);
     }
     
     /**
      * Listen to booking.checked_in events
      */
-    @RabbitListener(queues = RabbitMQConfig.BOOKING_CHECKED_IN_QUEUE)
-    public void handleBookingCheckedIn(BookingEvent event) {
-        logger.info("Received booking.checked_in event for booking: {}", event.getId());
-        
-        String title = "Check-In Successful";
-        String message = String.format(
-            "You have successfully checked in!\n\n" +
-            "Booking ID: %d\n" +
-            "Resource ID: %d\n" +
-            "Check-in Time: %s\n\n" +
-            "Enjoy your study session!",
-            event.getId(),
-            event.getResourceId(),
-            event.getCheckedInAt()
-        );
-        
-        notificationService.createNotification(
-            event.getUserId(),
-            NotificationType.CHECK_IN_REMINDER,
-            title,
-            message
-        );
+    @RabbitListener(queues = RabbitMQConfig.BOOKING_CHECKED_IN_QUEUE,
+                    containerFactory = RabbitMQConfig.BOOKING_BATCH_CONTAINER_FACTORY)
+    public void handleBookingCheckedIn(List<Message> messages) {
+        logger.info("Received {} booking.checked_in events", messages.size());
+        createNotifications(messages, NotificationType.CHECK_IN_CONFIRMED, RabbitMQConfig.BOOKING_CHECKED_IN_ROUTING_KEY,
+                            reminderScheduler::cancel);
     }
     
     /**
      * Listen to booking.no_show events
      */
-    @RabbitListener(queues = RabbitMQConfig.BOOKING_NO_SHOW_QUEUE)
-    public void handleBookingNoShow(BookingEvent event) {
-        logger.info("Received booking.no_show event for booking: {}", event.getId());
+    @RabbitListener(queues = RabbitMQConfig.BOOKING_NO_SHOW_QUEUE,
+                    containerFactory = RabbitMQConfig.BOOKING_BATCH_CONTAINER_FACTORY)
+    public void handleBookingNoShow(List<Message> messages) {
+        logger.info("Received {} booking.no_show events", messages.size());
+        createNotifications(messages, NotificationType.NO_SHOW_ALERT, RabbitMQConfig.BOOKING_NO_SHOW_ROUTING_KEY,
+                            reminderScheduler::cancel);
+    }
+    
+    /**
+     * Notify the users of a batch of events and apply the reminder changes of the events not seen before
+     */
+    private void createNotifications(List<Message> messages, NotificationType type, String eventType,
+                                     Consumer<List<BookingEvent>> updateReminders) {
+        List<Message> accepted = new ArrayList<>(messages.size());
+        List<NotificationDraft> drafts = new ArrayList<>(messages.size());
+        // Drafts without an event key are not deduplicated, so events are found by draft rather than key
+        Map<NotificationDraft, BookingEvent> eventsByDraft = new IdentityHashMap<>();
+        for (Message message : messages) {
+            try {
+                BookingEvent event = readEvent(message);
+                NotificationDraft draft = toDraft(event, type, eventKey(eventType, event, message));
+                drafts.add(draft);
+                accepted.add(message);
+                eventsByDraft.put(draft, event);
+            } catch (RuntimeException e) {
+                failedMessageRecoverer.recover(message, e);
+            }
+        }
+        if (drafts.isEmpty()) {
+            return;
+        }
         
-        String title = "No-Show Alert";
-        String message = String.format(
-            "You did not check in for your booking.\n\n" +
-            "Booking ID: %d\n" +
-            "Resource ID: %d\n" +
-            "Scheduled Time: %s to %s\n\n" +
-            "The booking has been released. Please book again if you need the resource.",
+        Consumer<List<NotificationDraft>> onNew = newDrafts -> updateReminders.accept(newDrafts.stream()
+            .map(eventsByDraft::get)
+            .collect(Collectors.toList()));
+        try {
+            notificationService.createNotifications(drafts, onNew);
+        } catch (RuntimeException e) {
+            logger.warn("Batch of {} booking events failed, retrying individually: {}", drafts.size(), e.getMessage());
+            for (int i = 0; i < drafts.size(); i++) {
+                try {
+                    notificationService.createNotifications(List.of(drafts.get(i)), onNew);
+                } catch (RuntimeException eventFailure) {
+                    failedMessageRecoverer.recover(accepted.get(i), eventFailure);
+                }
+            }
+        }
+    }
+    
+    private BookingEvent readEvent(Message message) {
+        BookingEvent event;
+        try {
+            event = objectMapper.readValue(message.getBody(), BookingEvent.class);
+        } catch (IOException e) {
+            throw new MessageConversionException("Unreadable booking event", e);
+        }
+        if (event == null || event.getUserId() == null) {
+            throw new IllegalArgumentException("Booking event has no userId");
+        }
+        if (event.getId() == null) {
+            throw new IllegalArgumentException("Booking event has no id");
+        }
+        return event;
+    }
+    
+    /**
+     * Identity of an event for deduplication: a redelivery has the same key, while a later
+     * change to the same booking carries a different status or updatedAt
+     * Without those the message id is used instead, as the booking id alone would match every
+     * later change to the booking; an event with neither is not deduplicated.
+     */
+    private static String eventKey(String eventType, BookingEvent event, Message message) {
+        if (event.getStatus() != null && event.getUpdatedAt() != null) {
+            return eventType + ":" + event.getId() + ":" + event.getStatus() + ":" + event.getUpdatedAt();
+        }
+        String messageId = message.getMessageProperties().getMessageId();
+        if (messageId == null) {
+            logger.warn("Booking event {} has no status, update time or message id; it is not deduplicated",
+                        event.getId());
+            return null;
+        }
+        return eventType + ":" + event.getId() + ":message:" + messageId;
+    }
+    
+    private NotificationDraft toDraft(BookingEvent event, NotificationType type, String eventKey) {
+        RenderedNotification rendered = templateRegistry.renderBooking(type, new BookingParameters(
             event.getId(),
             event.getResourceId(),
             event.getStartTime(),
-            event.getEndTime()
-        );
-        
-        notificationService.createNotification(
-            event.getUserId(),
-            NotificationType.NO_SHOW_ALERT,
-            title,
-            message
-        );
+            event.getEndTime(),
+            event.getQrCode(),
+            event.getCheckedInAt()
+        ));
+        return new NotificationDraft(event.getUserId(), type, rendered.title(), rendered.message(), eventKey);
     }
 }
-
-
-
-
-
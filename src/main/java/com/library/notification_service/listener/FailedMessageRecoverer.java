@@ -0,0 +1,124 @@
+package com.library.notification_service.listener;
+
+import com.library.notification_service.config.RabbitMQConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Routes messages that failed processing to their retry or dead-letter queue.
+ * The attempt count travels in the x-retry-count header; each retry waits twice as long as the
+ * previous one, up to max-delay-ms. Messages that can never succeed (unreadable payloads,
+ * invalid events) skip the retries and are dead-lettered straight away.
+ * Delays are per-message TTLs on a shared retry queue, so a message can wait behind one with a
+ * longer delay; it is never redelivered early.
+ */
+@Component
+public class FailedMessageRecoverer implements MessageBatchRecoverer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FailedMessageRecoverer.class);
+    
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String ORIGINAL_QUEUE_HEADER = "x-original-queue";
+    public static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+    public static final String FAILED_AT_HEADER = "x-failed-at";
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    private final RabbitTemplate rabbitTemplate;
+    
+    @Value("${notification.rabbitmq.retry.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${notification.rabbitmq.retry.initial-delay-ms:5000}")
+    private long initialDelayMs;
+    
+    @Value("${notification.rabbitmq.retry.max-delay-ms:300000}")
+    private long maxDelayMs;
+    
+    public FailedMessageRecoverer(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+    
+    @Override
+    public void recover(Message message, Throwable cause) {
+        MessageProperties properties = message.getMessageProperties();
+        String queue = properties.getConsumerQueue();
+        int retries = retryCount(properties);
+        
+        if (isPermanent(cause) || retries + 1 >= maxAttempts) {
+            properties.setHeader(ORIGINAL_QUEUE_HEADER, queue);
+            properties.setHeader(EXCEPTION_TYPE_HEADER, rootCause(cause).getClass().getName());
+            properties.setHeader(EXCEPTION_MESSAGE_HEADER, truncate(rootCause(cause).getMessage()));
+            properties.setHeader(FAILED_AT_HEADER, Instant.now().toString());
+            rabbitTemplate.send(RabbitMQConfig.DEAD_LETTER_EXCHANGE, queue, message);
+            logger.error("Dead-lettered message from {} after {} attempt(s): {}",
+                         queue, retries + 1, rootCause(cause).getMessage());
+            return;
+        }
+        
+        long delay = retryDelayMs(retries);
+        properties.setHeader(RETRY_COUNT_HEADER, retries + 1);
+        properties.setExpiration(Long.toString(delay));
+        rabbitTemplate.send(RabbitMQConfig.RETRY_EXCHANGE, queue, message);
+        logger.warn("Message from {} failed (attempt {} of {}), retrying in {} ms: {}",
+                    queue, retries + 1, maxAttempts, delay, rootCause(cause).getMessage());
+    }
+    
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        for (Message message : messages) {
+            recover(message, cause);
+        }
+    }
+    
+    private long retryDelayMs(int retries) {
+        long delay = initialDelayMs << Math.min(retries, 20);
+        return Math.min(delay, maxDelayMs);
+    }
+    
+    private static int retryCount(MessageProperties properties) {
+        Object header = properties.getHeader(RETRY_COUNT_HEADER);
+        if (header instanceof Number number) {
+            return number.intValue();
+        }
+        return 0;
+    }
+    
+    private static boolean isPermanent(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof MessageConversionException
+                    || t instanceof IllegalArgumentException
+                    || t instanceof DataIntegrityViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static Throwable rootCause(Throwable cause) {
+        Throwable root = cause;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root;
+    }
+    
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,100 @@
+package com.library.notification_service.listener;
+
+import com.library.notification_service.dto.NotificationResponse;
+import com.library.notification_service.dto.NotificationUpdate;
+import com.library.notification_service.dto.NotificationUpdateBatch;
+import com.library.notification_service.entity.DeliveryChannel;
+import com.library.notification_service.service.BroadcastAudienceResolver;
+import com.library.notification_service.service.BroadcastService;
+import com.library.notification_service.service.NotificationPreferenceService;
+import com.library.notification_service.service.NotificationService;
+import com.library.notification_service.service.NotificationStreamRegistry;
+import com.library.notification_service.service.UnreadCountCache;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * RabbitMQ listener for notification updates fanned out to this instance
+ */
+@Component
+public class NotificationUpdateListener {
+    
+    private final UnreadCountCache unreadCountCache;
+    private final NotificationStreamRegistry streamRegistry;
+    private final BroadcastService broadcastService;
+    private final BroadcastAudienceResolver audienceResolver;
+    private final NotificationPreferenceService preferenceService;
+    private final NotificationService notificationService;
+    
+    public NotificationUpdateListener(UnreadCountCache unreadCountCache,
+                                      NotificationStreamRegistry streamRegistry,
+                                      BroadcastService broadcastService,
+                                      BroadcastAudienceResolver audienceResolver,
+                                      NotificationPreferenceService preferenceService,
+                                      NotificationService notificationService) {
+        this.unreadCountCache = unreadCountCache;
+        this.streamRegistry = streamRegistry;
+        this.broadcastService = broadcastService;
+        this.audienceResolver = audienceResolver;
+        this.preferenceService = preferenceService;
+        this.notificationService = notificationService;
+    }
+    
+    /**
+     * Apply updates to the local unread cache, then push them to connected clients
+     */
+    @RabbitListener(queues = "#{notificationUpdatesQueue.name}")
+    public void handleUpdates(NotificationUpdateBatch batch) {
+        for (NotificationUpdate update : batch.getUpdates()) {
+            if (update.getAudience() != null) {
+                applyBroadcast(update);
+                continue;
+            }
+            if (update.isPreferencesChanged()) {
+                applyPreferences(update);
+                continue;
+            }
+            unreadCountCache.apply(update);
+            streamRegistry.push(update);
+        }
+    }
+    
+    /**
+     * Count the broadcast for cached users in its audience, then push it to every connected one
+     * A fan-out-on-read broadcast is pushed as published, after reloading the active broadcasts;
+     * the rows of a fan-out-on-write broadcast are looked up for the connected users only.
+     */
+    private void applyBroadcast(NotificationUpdate update) {
+        if (update.getContentId() == null) {
+            broadcastService.refresh();
+        }
+        unreadCountCache.apply(update);
+        List<Long> recipients = preferenceService.select(
+            audienceResolver.select(update.getAudience(), streamRegistry.getConnectedUserIds()),
+            update.getNotification().getType(), DeliveryChannel.IN_APP);
+        if (update.getContentId() == null) {
+            for (Long userId : recipients) {
+                streamRegistry.push(userId, update.getNotification());
+            }
+            return;
+        }
+        if (recipients.isEmpty()) {
+            return;
+        }
+        for (NotificationResponse notification : notificationService.getBroadcastNotifications(
+                update.getContentId(), update.getNotification().getCreatedAt(), recipients)) {
+            streamRegistry.push(notification.getUserId(), notification);
+        }
+    }
+    
+    /**
+     * Reload the user's preferences; hidden or restored broadcasts change the unread count
+     */
+    private void applyPreferences(NotificationUpdate update) {
+        preferenceService.reload(update.getUserId());
+        unreadCountCache.invalidate(update.getUserId());
+        streamRegistry.push(update.getUserId(), null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.library.notification_service.listener;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.notification_service.service.BroadcastAudienceResolver;
+import com.library.notification_service.service.RecipientAddressResolver;
+import com.library.notification_service.service.UserDirectoryClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * RabbitMQ listener for user events fanned out to this instance
+ */
+@Component
+public class UserEventListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserEventListener.class);
+    
+    private final UserDirectoryClient userDirectoryClient;
+    private final RecipientAddressResolver addressResolver;
+    private final BroadcastAudienceResolver audienceResolver;
+    private final ObjectMapper objectMapper;
+    
+    public UserEventListener(UserDirectoryClient userDirectoryClient,
+                             RecipientAddressResolver addressResolver,
+                             BroadcastAudienceResolver audienceResolver,
+                             ObjectMapper objectMapper) {
+        this.userDirectoryClient = userDirectoryClient;
+        this.addressResolver = addressResolver;
+        this.audienceResolver = audienceResolver;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Any user change makes the cached directory and that user's cached address and role stale
+     * The payload is either the user or its ID; if neither can be read, all cached users are dropped.
+     */
+    @RabbitListener(queues = "#{userEventsQueue.name}")
+    public void handleUserEvent(Message message) {
+        logger.debug("Received {} event, invalidating user directory",
+                     message.getMessageProperties().getReceivedRoutingKey());
+        userDirectoryClient.invalidate();
+        
+        Long userId = readUserId(message);
+        if (userId != null) {
+            addressResolver.invalidate(userId);
+            audienceResolver.invalidate(userId);
+        } else {
+            addressResolver.invalidateAll();
+            audienceResolver.invalidateAll();
+        }
+    }
+    
+    private Long readUserId(Message message) {
+        try {
+            JsonNode payload = objectMapper.readTree(message.getBody());
+            JsonNode id = payload != null && payload.isObject() ? payload.get("id") : payload;
+            return id != null && id.canConvertToLong() ? id.asLong() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
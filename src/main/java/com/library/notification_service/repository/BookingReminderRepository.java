@@ -0,0 +1,169 @@
+package com.library.notification_service.repository;
+
+import com.library.notification_service.entity.NotificationType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC access to the booking_reminders schedule and its booking_reminder_cancellations
+ */
+@Repository
+public class BookingReminderRepository {
+    
+    private static final String UPSERT_SQL =
+        "INSERT INTO booking_reminders (booking_id, type, user_id, resource_id, start_time, end_time, qr_code, fire_at) " +
+        "SELECT ?, ?, ?, ?, ?, ?, ?, ? " +
+        "WHERE NOT EXISTS (SELECT 1 FROM booking_reminder_cancellations WHERE booking_id = ?) " +
+        "ON CONFLICT (booking_id, type) DO UPDATE SET user_id = EXCLUDED.user_id, " +
+        "resource_id = EXCLUDED.resource_id, start_time = EXCLUDED.start_time, end_time = EXCLUDED.end_time, " +
+        "qr_code = EXCLUDED.qr_code, fire_at = EXCLUDED.fire_at";
+    
+    private static final String DELETE_BY_BOOKINGS_SQL =
+        "DELETE FROM booking_reminders WHERE booking_id = ANY(CAST(? AS bigint[]))";
+    
+    private static final String INSERT_CANCELLATIONS_SQL =
+        "INSERT INTO booking_reminder_cancellations (booking_id, canceled_at) " +
+        "SELECT id, ? FROM unnest(CAST(? AS bigint[])) AS id " +
+        "ON CONFLICT (booking_id) DO NOTHING";
+    
+    private static final String PURGE_CANCELLATIONS_SQL =
+        "DELETE FROM booking_reminder_cancellations WHERE booking_id IN (" +
+        "SELECT booking_id FROM booking_reminder_cancellations WHERE canceled_at < ? LIMIT ?)";
+    
+    private static final String FIND_DUE_BEFORE_SQL =
+        "SELECT booking_id, type, fire_at FROM booking_reminders WHERE fire_at < ?";
+    
+    // A reminder written concurrently with its booking's cancellation can survive the cancel;
+    // it is still claimed, so it goes away, but not returned
+    private static final String CLAIM_DUE_SQL =
+        "WITH claimed AS (DELETE FROM booking_reminders WHERE (booking_id, type) IN (" +
+        "SELECT booking_id, type FROM booking_reminders WHERE fire_at < ? " +
+        "ORDER BY fire_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+        "RETURNING booking_id, type, user_id, resource_id, start_time, end_time, qr_code, fire_at) " +
+        "SELECT * FROM claimed c WHERE NOT EXISTS " +
+        "(SELECT 1 FROM booking_reminder_cancellations x WHERE x.booking_id = c.booking_id)";
+    
+    private static final RowMapper<Reminder> REMINDER_MAPPER = (rs, rowNum) -> new Reminder(
+        rs.getLong("booking_id"),
+        NotificationType.valueOf(rs.getString("type")),
+        rs.getLong("user_id"),
+        rs.getObject("resource_id", Long.class),
+        rs.getTimestamp("start_time").toLocalDateTime(),
+        toLocalDateTime(rs.getTimestamp("end_time")),
+        rs.getString("qr_code"),
+        rs.getTimestamp("fire_at").toLocalDateTime()
+    );
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public BookingReminderRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Insert or replace the given reminders as a single JDBC batch
+     * Reminders of canceled bookings are skipped. Rows are written in key order so that
+     * concurrent batches cannot deadlock.
+     */
+    public void upsert(List<Reminder> reminders) {
+        List<Reminder> sorted = reminders.stream()
+            .sorted(Comparator.comparing(Reminder::bookingId).thenComparing(Reminder::type))
+            .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Reminder reminder = sorted.get(i);
+                ps.setLong(1, reminder.bookingId());
+                ps.setString(2, reminder.type().name());
+                ps.setLong(3, reminder.userId());
+                ps.setObject(4, reminder.resourceId(), Types.BIGINT);
+                ps.setTimestamp(5, Timestamp.valueOf(reminder.startTime()));
+                ps.setTimestamp(6, reminder.endTime() != null ? Timestamp.valueOf(reminder.endTime()) : null);
+                ps.setString(7, reminder.qrCode());
+                ps.setTimestamp(8, Timestamp.valueOf(reminder.fireAt()));
+                ps.setLong(9, reminder.bookingId());
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return sorted.size();
+            }
+        });
+    }
+    
+    /**
+     * Record the given bookings as canceled, then delete their pending reminders
+     * Returns the number of reminders deleted.
+     */
+    public int cancelBookings(Collection<Long> bookingIds, LocalDateTime canceledAt) {
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        Long[] ids = bookingIds.stream().sorted().toArray(Long[]::new);
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_CANCELLATIONS_SQL);
+            ps.setTimestamp(1, Timestamp.valueOf(canceledAt));
+            ps.setArray(2, connection.createArrayOf("bigint", ids));
+            return ps;
+        });
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(DELETE_BY_BOOKINGS_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", ids));
+            return ps;
+        });
+    }
+    
+    /**
+     * Delete up to limit cancellations recorded before the cutoff
+     */
+    public int deleteCancellationsBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(PURGE_CANCELLATIONS_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+    
+    /**
+     * Keys and fire times of the reminders due before the given time, including overdue ones
+     */
+    public List<ReminderTime> findDueBefore(LocalDateTime before) {
+        return jdbcTemplate.query(FIND_DUE_BEFORE_SQL, (rs, rowNum) -> new ReminderTime(
+            rs.getLong("booking_id"),
+            NotificationType.valueOf(rs.getString("type")),
+            rs.getTimestamp("fire_at").toLocalDateTime()
+        ), Timestamp.valueOf(before));
+    }
+    
+    /**
+     * Delete and return up to limit reminders due before the given time, oldest first
+     * Rows locked by another replica's claim are skipped, so each reminder is claimed once.
+     */
+    public List<Reminder> claimDue(LocalDateTime before, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE_SQL, REMINDER_MAPPER, Timestamp.valueOf(before), limit);
+    }
+    
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+    
+    /**
+     * A pending reminder with the booking details its notification is rendered from
+     */
+    public record Reminder(Long bookingId, NotificationType type, Long userId, Long resourceId,
+                           LocalDateTime startTime, LocalDateTime endTime, String qrCode,
+                           LocalDateTime fireAt) {}
+    
+    /**
+     * The key and fire time of a pending reminder
+     */
+    public record ReminderTime(Long bookingId, NotificationType type, LocalDateTime fireAt) {}
+}
@@ -0,0 +1,81 @@
+package com.library.notification_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JDBC access to the broadcast_receipts table
+ */
+@Repository
+public class BroadcastReceiptRepository {
+    
+    private static final String FIND_SQL =
+        "SELECT broadcast_id, read_at IS NOT NULL, dismissed_at IS NOT NULL FROM broadcast_receipts " +
+        "WHERE user_id = ? AND broadcast_id >= ?";
+    
+    private static final String MARK_READ_SQL =
+        "INSERT INTO broadcast_receipts (user_id, broadcast_id, read_at) " +
+        "SELECT ?, id, ? FROM unnest(CAST(? AS bigint[])) AS id " +
+        "ON CONFLICT (user_id, broadcast_id) DO UPDATE SET read_at = EXCLUDED.read_at " +
+        "WHERE broadcast_receipts.read_at IS NULL";
+    
+    private static final String DISMISS_SQL =
+        "UPDATE broadcast_receipts SET dismissed_at = ? " +
+        "WHERE user_id = ? AND broadcast_id = ? AND dismissed_at IS NULL";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public BroadcastReceiptRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Receipts of a user for broadcasts with an id of at least minBroadcastId, keyed by broadcast id
+     */
+    public Map<Long, Receipt> findByUser(Long userId, Long minBroadcastId) {
+        Map<Long, Receipt> receipts = new HashMap<>();
+        jdbcTemplate.query(FIND_SQL, rs -> {
+            receipts.put(rs.getLong(1), new Receipt(rs.getBoolean(2), rs.getBoolean(3)));
+        }, userId, minBroadcastId);
+        return receipts;
+    }
+    
+    /**
+     * Mark the given broadcasts as read for a user in one statement
+     * Returns the number of broadcasts that were unread.
+     * Ids are written in sorted order so that concurrent calls cannot deadlock.
+     */
+    public int markRead(Long userId, Collection<Long> broadcastIds, LocalDateTime readAt) {
+        if (broadcastIds.isEmpty()) {
+            return 0;
+        }
+        Long[] sortedIds = broadcastIds.stream().distinct().sorted().toArray(Long[]::new);
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(MARK_READ_SQL);
+            ps.setLong(1, userId);
+            ps.setTimestamp(2, Timestamp.valueOf(readAt));
+            ps.setArray(3, connection.createArrayOf("bigint", sortedIds));
+            return ps;
+        });
+    }
+    
+    /**
+     * Hide a broadcast from a user; the broadcast must have been marked as read first
+     * Returns false if it was already dismissed.
+     */
+    public boolean dismiss(Long userId, Long broadcastId, LocalDateTime dismissedAt) {
+        return jdbcTemplate.update(DISMISS_SQL, Timestamp.valueOf(dismissedAt), userId, broadcastId) > 0;
+    }
+    
+    /**
+     * Read state of one broadcast for one user
+     */
+    public record Receipt(boolean read, boolean dismissed) {}
+}
@@ -0,0 +1,20 @@
+package com.library.notification_service.repository;
+
+import com.library.notification_service.entity.Broadcast;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for Broadcast entity
+ */
+@Repository
+public interface BroadcastRepository extends JpaRepository<Broadcast, Long> {
+    
+    /**
+     * Find broadcasts published after the given time
+     */
+    List<Broadcast> findByCreatedAtAfter(LocalDateTime createdAt);
+}
@@ -0,0 +1,183 @@
+package com.library.notification_service.repository;
+
+import com.library.notification_service.entity.DeliveryChannel;
+import com.library.notification_service.entity.DeliveryStatus;
+import com.library.notification_service.entity.Notification;
+import com.library.notification_service.entity.NotificationContent;
+import com.library.notification_service.entity.NotificationDelivery;
+import com.library.notification_service.entity.NotificationType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch operations on the notifications and notification_deliveries tables.
+ * Used for broadcasts, where going through the persistence context row by row is too slow.
+ */
+@Repository
+public class NotificationBatchRepository {
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO notifications (id, user_id, type, content_id, is_read, email_sent, created_at) " +
+        "VALUES (?, ?, ?, ?, false, false, ?)";
+    
+    private static final String INSERT_CONTENT_SQL =
+        "INSERT INTO notification_contents (id, title, message, created_at) VALUES (?, ?, ?, ?)";
+    
+    private static final String INSERT_DELIVERY_SQL =
+        "INSERT INTO notification_deliveries (id, notification_id, user_id, channel, status, attempt_count, " +
+        "next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+    
+    private static final String INSERT_BROADCAST_DELIVERY_SQL =
+        "INSERT INTO notification_deliveries (id, broadcast_id, user_id, channel, status, attempt_count, " +
+        "next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+    
+    private static final String ALLOCATE_IDS_SQL =
+        "SELECT nextval(CAST(? AS regclass)) FROM generate_series(1, ?)";
+    
+    private static final String MARK_EMAIL_SENT_SQL =
+        "UPDATE notifications SET email_sent = true WHERE id IN (:ids)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    
+    public NotificationBatchRepository(JdbcTemplate jdbcTemplate,
+                                       NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+    
+    /**
+     * Store broadcast text once and return its id
+     */
+    public Long insertContent(String title, String message, LocalDateTime createdAt) {
+        Long id = allocateIds("notification_contents_seq", NotificationContent.ID_ALLOCATION_SIZE, 1).get(0);
+        jdbcTemplate.update(INSERT_CONTENT_SQL, id, title, message, Timestamp.valueOf(createdAt));
+        return id;
+    }
+    
+    /**
+     * Insert a notification referencing the given content for every given user as a single JDBC batch
+     * Returns the generated ids in the order of the given user IDs.
+     */
+    public List<Long> insertForUsers(List<Long> userIds, NotificationType type, Long contentId,
+                                     LocalDateTime createdAt) {
+        List<Long> ids = allocateIds("notifications_seq", Notification.ID_ALLOCATION_SIZE, userIds.size());
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, ids.get(i));
+                ps.setLong(2, userIds.get(i));
+                ps.setString(3, type.name());
+                ps.setLong(4, contentId);
+                ps.setTimestamp(5, timestamp);
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return userIds.size();
+            }
+        });
+        return ids;
+    }
+    
+    /**
+     * Queue an email delivery for each given notification as a single JDBC batch
+     */
+    public void insertEmailDeliveries(List<Long> notificationIds, List<Long> userIds, LocalDateTime createdAt,
+                                      LocalDateTime nextAttemptAt) {
+        List<Long> ids = allocateIds("notification_deliveries_seq", NotificationDelivery.ID_ALLOCATION_SIZE,
+                                     notificationIds.size());
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        Timestamp dueAt = Timestamp.valueOf(nextAttemptAt);
+        jdbcTemplate.batchUpdate(INSERT_DELIVERY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, ids.get(i));
+                ps.setLong(2, notificationIds.get(i));
+                ps.setLong(3, userIds.get(i));
+                ps.setString(4, DeliveryChannel.EMAIL.name());
+                ps.setString(5, DeliveryStatus.PENDING.name());
+                ps.setTimestamp(6, dueAt);
+                ps.setTimestamp(7, timestamp);
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return notificationIds.size();
+            }
+        });
+    }
+    
+    /**
+     * Queue an email delivery of a fan-out-on-read broadcast for each given user as a single JDBC batch
+     */
+    public void insertBroadcastEmailDeliveries(Long broadcastId, List<Long> userIds, LocalDateTime createdAt,
+                                               LocalDateTime nextAttemptAt) {
+        List<Long> ids = allocateIds("notification_deliveries_seq", NotificationDelivery.ID_ALLOCATION_SIZE,
+                                     userIds.size());
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        Timestamp dueAt = Timestamp.valueOf(nextAttemptAt);
+        jdbcTemplate.batchUpdate(INSERT_BROADCAST_DELIVERY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, ids.get(i));
+                ps.setLong(2, broadcastId);
+                ps.setLong(3, userIds.get(i));
+                ps.setString(4, DeliveryChannel.EMAIL.name());
+                ps.setString(5, DeliveryStatus.PENDING.name());
+                ps.setTimestamp(6, dueAt);
+                ps.setTimestamp(7, timestamp);
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return userIds.size();
+            }
+        });
+    }
+    
+    /**
+     * Reserve ids from a sequence the same way Hibernate's pooled optimizer does:
+     * every sequence value is the top of a block of blockSize ids.
+     * Sequences are seeded so that their first value is blockSize; Hibernate treats a first value
+     * of 1 as the start of a block rather than its top, which this path does not, so such a value
+     * is rejected instead of handing out ids below 1.
+     */
+    private List<Long> allocateIds(String sequence, int blockSize, int count) {
+        int blocks = (count + blockSize - 1) / blockSize;
+        List<Long> hiValues = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, sequence, blocks);
+        
+        List<Long> ids = new ArrayList<>(count);
+        for (Long hi : hiValues) {
+            if (hi < blockSize) {
+                throw new IllegalStateException("Sequence " + sequence + " returned " + hi +
+                                                ", below its block size " + blockSize + "; it is not seeded");
+            }
+            for (long id = hi - blockSize + 1; id <= hi && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Flag the given notifications as emailed in one statement
+     */
+    public int markEmailSent(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return namedParameterJdbcTemplate.update(MARK_EMAIL_SENT_SQL, new MapSqlParameterSource("ids", ids));
+    }
+}
@@ -0,0 +1,12 @@
+package com.library.notification_service.repository;
+
+import com.library.notification_service.entity.NotificationContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for NotificationContent entity
+ */
+@Repository
+public interface NotificationContentRepository extends JpaRepository<NotificationContent, Long> {
+}
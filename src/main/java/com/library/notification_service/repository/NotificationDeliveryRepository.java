@@ -0,0 +1,61 @@
+package com.library.notification_service.repository;
+
+import com.library.notification_service.entity.NotificationDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for NotificationDelivery outbox entries
+ */
+@Repository
+public interface NotificationDeliveryRepository extends JpaRepository<NotificationDelivery, Long> {
+    
+    /**
+     * Lock due pending deliveries, skipping rows already claimed by another replica
+     */
+    @Query(value = "SELECT * FROM notification_deliveries " +
+                   "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at " +
+                   "LIMIT :limit " +
+                   "FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<NotificationDelivery> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    /**
+     * Lock the given users' pending deliveries that come due by the given time, for sending in a digest
+     * Only first attempts that no dispatcher holds are picked up: leased deliveries are in flight,
+     * and failed ones must wait out their backoff.
+     */
+    @Query(value = "SELECT * FROM notification_deliveries " +
+                   "WHERE status = 'PENDING' AND user_id IN (:userIds) AND next_attempt_at <= :until " +
+                   "AND attempt_count = 0 AND claimed_until IS NULL " +
+                   "ORDER BY next_attempt_at " +
+                   "LIMIT :limit " +
+                   "FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<NotificationDelivery> lockPendingForUsers(@Param("userIds") Collection<Long> userIds,
+                                                   @Param("until") LocalDateTime until,
+                                                   @Param("limit") int limit);
+    
+    /**
+     * Count pending deliveries that are due, i.e. the outbox backlog
+     */
+    @Query(value = "SELECT COUNT(*) FROM notification_deliveries WHERE status = 'PENDING' AND next_attempt_at <= :now",
+           nativeQuery = true)
+    long countDue(@Param("now") LocalDateTime now);
+    
+    /**
+     * Mark deliveries as sent
+     */
+    @Modifying
+    @Query("UPDATE NotificationDelivery d SET d.status = com.library.notification_service.entity.DeliveryStatus.SENT, " +
+           "d.sentAt = :sentAt, d.lastError = null, d.claimedUntil = null WHERE d.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+}
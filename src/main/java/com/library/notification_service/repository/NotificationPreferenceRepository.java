@@ -0,0 +1,96 @@
+package com.library.notification_service.repository;
+
+import com.library.notification_service.entity.DeliveryChannel;
+import com.library.notification_service.entity.NotificationType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access to the notification_preferences table
+ */
+@Repository
+public class NotificationPreferenceRepository {
+    
+    private static final String SELECT_COLUMNS =
+        "SELECT user_id, type, channel, enabled, updated_at FROM notification_preferences";
+    
+    private static final String FIND_BY_USER_SQL = SELECT_COLUMNS + " WHERE user_id = ?";
+    
+    private static final String FIND_CHANGED_SINCE_SQL = SELECT_COLUMNS + " WHERE updated_at > ?";
+    
+    private static final String UPSERT_SQL =
+        "INSERT INTO notification_preferences (user_id, type, channel, enabled, updated_at) VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT (user_id, type, channel) DO UPDATE SET enabled = EXCLUDED.enabled, updated_at = EXCLUDED.updated_at";
+    
+    private static final RowMapper<Preference> PREFERENCE_MAPPER = (rs, rowNum) -> new Preference(
+        rs.getLong("user_id"),
+        NotificationType.valueOf(rs.getString("type")),
+        DeliveryChannel.valueOf(rs.getString("channel")),
+        rs.getBoolean("enabled"),
+        rs.getTimestamp("updated_at").toLocalDateTime()
+    );
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public NotificationPreferenceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Stream every stored preference, or only those updated after since when it is set
+     * Rows are handed over one at a time, so loading all users does not materialize a list.
+     */
+    public void forEachChangedSince(LocalDateTime since, Consumer<Preference> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(PREFERENCE_MAPPER.mapRow(rs, 0));
+        if (since == null) {
+            jdbcTemplate.query(SELECT_COLUMNS, handler);
+        } else {
+            jdbcTemplate.query(FIND_CHANGED_SINCE_SQL, handler, Timestamp.valueOf(since));
+        }
+    }
+    
+    /**
+     * Stored preferences of one user
+     */
+    public List<Preference> findByUser(Long userId) {
+        return jdbcTemplate.query(FIND_BY_USER_SQL, PREFERENCE_MAPPER, userId);
+    }
+    
+    /**
+     * Insert or replace the given preferences as a single JDBC batch
+     */
+    public void upsert(List<Preference> preferences) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Preference preference = preferences.get(i);
+                ps.setLong(1, preference.userId());
+                ps.setString(2, preference.type().name());
+                ps.setString(3, preference.channel().name());
+                ps.setBoolean(4, preference.enabled());
+                ps.setTimestamp(5, Timestamp.valueOf(preference.updatedAt()));
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return preferences.size();
+            }
+        });
+    }
+    
+    /**
+     * A stored preference row
+     */
+    public record Preference(Long userId, NotificationType type, DeliveryChannel channel, boolean enabled,
+                             LocalDateTime updatedAt) {}
+}
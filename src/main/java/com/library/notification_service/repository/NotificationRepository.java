@@ -1,10 +1,17 @@
 package com.library.notification_service.repository;
 
+import com.library.notification_service.dto.NotificationSummary;
 import com.library.notification_service.entity.Notification;
 import com.library.notification_service.entity.NotificationType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,6 +25,17 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     List<Notification> findByUserId(Long userId);
     
+    /**
+     * Find a user's notifications created since the given time; only the partitions from then on are read
+     */
+    List<Notification> findByUserIdAndCreatedAtGreaterThanEqual(Long userId, LocalDateTime since);
+    
+    /**
+     * Find the given users' rows of a fan-out-on-write broadcast, which all share content and creation time
+     */
+    List<Notification> findByUserIdInAndCreatedAtAndContentId(Collection<Long> userIds, LocalDateTime createdAt,
+                                                               Long contentId);
+    
     /**
      * Find unread notifications by user ID
      */
@@ -32,6 +50,42 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      * Count unread notifications for a user
      */
     long countByUserIdAndIsReadFalse(Long userId);
+    
+    /**
+     * Mark all unread notifications of a user as read in one statement
+     * Returns the number of notifications updated.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false")
+    int markAllAsReadByUserId(@Param("userId") Long userId);
+    
+    /**
+     * First page of a user's notification summaries created since the given time, newest first
+     * Broadcast titles come from the shared content row.
+     */
+    @Query("SELECT new com.library.notification_service.dto.NotificationSummary(" +
+           "n.id, n.userId, n.type, COALESCE(n.title, c.title), n.isRead, n.createdAt) " +
+           "FROM Notification n LEFT JOIN NotificationContent c ON c.id = n.contentId " +
+           "WHERE n.userId = :userId AND n.createdAt >= :since " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationSummary> findSummariesByUserId(@Param("userId") Long userId,
+                                                    @Param("since") LocalDateTime since,
+                                                    Pageable pageable);
+    
+    /**
+     * Next page of a user's notification summaries, strictly older than the (createdAt, id) cursor
+     */
+    @Query("SELECT new com.library.notification_service.dto.NotificationSummary(" +
+           "n.id, n.userId, n.type, COALESCE(n.title, c.title), n.isRead, n.createdAt) " +
+           "FROM Notification n LEFT JOIN NotificationContent c ON c.id = n.contentId " +
+           "WHERE n.userId = :userId AND n.createdAt >= :since " +
+           "AND (n.createdAt, n.id) < (:createdAt, :id) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationSummary> findSummariesByUserIdBefore(@Param("userId") Long userId,
+                                                          @Param("since") LocalDateTime since,
+                                                          @Param("createdAt") LocalDateTime createdAt,
+                                                          @Param("id") Long id,
+                                                          Pageable pageable);
 }
 
 
@@ -0,0 +1,148 @@
+package com.library.notification_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * JDBC access to the partitions of the notifications table and to notifications_archive
+ */
+@Repository
+public class NotificationRetentionRepository {
+    
+    public static final String MONTHLY_PARTITION_PREFIX = "notifications_p";
+    public static final String LEGACY_PARTITION_PREFIX = "notifications_before_";
+    
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    
+    private static final String FIND_PARTITIONS_SQL =
+        "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+        "WHERE i.inhparent = CAST('notifications' AS regclass) ORDER BY c.relname";
+    
+    private static final String LOCK_TIMEOUT_SQL = "SELECT set_config('lock_timeout', ?, true)";
+    
+    // Walks the table in id order, which follows creation order, so each chunk reads limit rows by primary key
+    private static final String SCANNED_CTE =
+        "WITH scanned AS (SELECT id, created_at, is_read FROM notifications WHERE id > ? ORDER BY id LIMIT ?), " +
+        "moved AS (DELETE FROM notifications n USING scanned s " +
+        "WHERE n.id = s.id AND n.created_at = s.created_at AND s.is_read AND n.is_read AND s.created_at < ? " +
+        "RETURNING n.id, n.user_id, n.type, n.title, n.message, n.email_sent, n.created_at, n.content_id) ";
+    
+    private static final String CHUNK_RESULT =
+        "SELECT (SELECT MAX(id) FROM scanned) AS last_id, (SELECT MIN(created_at) FROM scanned) AS oldest, ";
+    
+    private static final String DELETE_CHUNK_SQL =
+        SCANNED_CTE + CHUNK_RESULT + "(SELECT COUNT(*) FROM moved) AS removed";
+    
+    private static final String ARCHIVE_CHUNK_SQL =
+        SCANNED_CTE +
+        ", archived AS (INSERT INTO notifications_archive " +
+        "(id, user_id, type, title, message, email_sent, created_at, content_id, archived_at) " +
+        "SELECT id, user_id, type, title, message, email_sent, created_at, content_id, ? FROM moved RETURNING id) " +
+        CHUNK_RESULT + "(SELECT COUNT(*) FROM archived) AS removed";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public NotificationRetentionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Names of the partitions of the notifications table
+     */
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS_SQL, String.class);
+    }
+    
+    /**
+     * Create the partition of one month unless it exists
+     */
+    public void createMonthlyPartition(YearMonth month) {
+        // DDL takes no bind parameters; the name and bounds are built from the month only
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + monthlyPartitionName(month) +
+                             " PARTITION OF notifications FOR VALUES FROM ('" + month.atDay(1) +
+                             "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+    
+    /**
+     * Tell whether a partition holds no rows
+     */
+    public boolean isEmpty(String partition) {
+        Boolean empty = jdbcTemplate.queryForObject(
+            "SELECT NOT EXISTS (SELECT 1 FROM " + quote(partition) + ")", Boolean.class);
+        return Boolean.TRUE.equals(empty);
+    }
+    
+    /**
+     * Detach and drop a partition
+     * Must be called inside a transaction; detaching briefly locks the whole table, so
+     * both statements give up rather than queue behind long-running queries.
+     */
+    public void dropPartition(String partition, long lockTimeoutMs) {
+        jdbcTemplate.queryForObject(LOCK_TIMEOUT_SQL, String.class, lockTimeoutMs + "ms");
+        jdbcTemplate.execute("ALTER TABLE notifications DETACH PARTITION " + quote(partition));
+        jdbcTemplate.execute("DROP TABLE " + quote(partition));
+    }
+    
+    /**
+     * Remove the read notifications created before the cutoff among the next limit rows after afterId,
+     * copying them to notifications_archive when archivedAt is set
+     */
+    public RetentionChunk removeReadChunk(long afterId, int limit, LocalDateTime cutoff, LocalDateTime archivedAt) {
+        if (archivedAt == null) {
+            return jdbcTemplate.queryForObject(DELETE_CHUNK_SQL, (rs, rowNum) -> toChunk(rs),
+                                               afterId, limit, Timestamp.valueOf(cutoff));
+        }
+        return jdbcTemplate.queryForObject(ARCHIVE_CHUNK_SQL, (rs, rowNum) -> toChunk(rs),
+                                           afterId, limit, Timestamp.valueOf(cutoff), Timestamp.valueOf(archivedAt));
+    }
+    
+    public static String monthlyPartitionName(YearMonth month) {
+        return MONTHLY_PARTITION_PREFIX + month.format(PARTITION_MONTH);
+    }
+    
+    /**
+     * Month held by a monthly partition, or null for any other partition
+     */
+    public static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(MONTHLY_PARTITION_PREFIX)) {
+            return null;
+        }
+        return YearMonth.parse(partition.substring(MONTHLY_PARTITION_PREFIX.length()), PARTITION_MONTH);
+    }
+    
+    /**
+     * Exclusive upper bound of a partition's created_at range, taken from its name
+     */
+    public static LocalDateTime endOf(String partition) {
+        if (partition.startsWith(LEGACY_PARTITION_PREFIX)) {
+            return YearMonth.parse(partition.substring(LEGACY_PARTITION_PREFIX.length()), PARTITION_MONTH)
+                .atDay(1).atStartOfDay();
+        }
+        return monthOf(partition).plusMonths(1).atDay(1).atStartOfDay();
+    }
+    
+    private static RetentionChunk toChunk(ResultSet rs) throws SQLException {
+        Timestamp oldest = rs.getTimestamp("oldest");
+        return new RetentionChunk(rs.getObject("last_id", Long.class),
+                                  oldest != null ? oldest.toLocalDateTime() : null,
+                                  rs.getInt("removed"));
+    }
+    
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+    
+    /**
+     * Outcome of one retention chunk: the last id scanned (null when nothing was left to scan),
+     * the oldest creation time scanned and the number of notifications removed
+     */
+    public record RetentionChunk(Long lastId, LocalDateTime oldest, int removed) {}
+}
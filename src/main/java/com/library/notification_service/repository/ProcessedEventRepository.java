@@ -0,0 +1,58 @@
+package com.library.notification_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC access to the processed_events deduplication table
+ */
+@Repository
+public class ProcessedEventRepository {
+    
+    private static final String CLAIM_SQL =
+        "INSERT INTO processed_events (event_key, processed_at) " +
+        "SELECT key, ? FROM unnest(CAST(? AS text[])) AS key " +
+        "ON CONFLICT (event_key) DO NOTHING RETURNING event_key";
+    
+    private static final String PURGE_SQL =
+        "DELETE FROM processed_events WHERE event_key IN (" +
+        "SELECT event_key FROM processed_events WHERE processed_at < ? LIMIT ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public ProcessedEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Record the given event keys in one statement and return the ones that were new
+     * Keys already recorded, including ones another transaction is inserting right now, are
+     * left out once that transaction commits.
+     * Keys are inserted in sorted order so that concurrent claims cannot deadlock.
+     */
+    public Set<String> claim(Collection<String> keys, LocalDateTime processedAt) {
+        String[] sortedKeys = keys.stream().distinct().sorted().toArray(String[]::new);
+        List<String> claimed = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CLAIM_SQL);
+            ps.setTimestamp(1, Timestamp.valueOf(processedAt));
+            ps.setArray(2, connection.createArrayOf("text", sortedKeys));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+        return new HashSet<>(claimed);
+    }
+    
+    /**
+     * Delete up to limit keys recorded before the cutoff
+     */
+    public int deleteProcessedBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+}
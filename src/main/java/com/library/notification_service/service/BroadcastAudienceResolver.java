@@ -0,0 +1,114 @@
+package com.library.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.notification_service.entity.BroadcastAudience;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which users belong to a broadcast audience.
+ * Only the admin flag of a user matters, so that is all that is cached; flags missing from
+ * the cache are looked up in the user directory in bulk. Users the user service does not know
+ * are treated as regular users. Entries expire after a TTL and are dropped early when a user
+ * event reports a change.
+ * Lookups never wait for the directory to reload. Flags read from a stale directory are used
+ * but not cached, so they are looked up again once the reload is done.
+ * Hit and miss counts are published as cache metrics under "notification.broadcast-audience".
+ */
+@Component
+public class BroadcastAudienceResolver {
+    
+    private final UserDirectoryClient userDirectoryClient;
+    private final Cache<Long, Boolean> adminFlags;
+    
+    public BroadcastAudienceResolver(UserDirectoryClient userDirectoryClient,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${notification.broadcast.audience-cache.max-size:100000}") long maxSize,
+                                     @Value("${notification.broadcast.audience-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.userDirectoryClient = userDirectoryClient;
+        this.adminFlags = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, adminFlags, "notification.broadcast-audience");
+    }
+    
+    /**
+     * Tell whether a user belongs to the audience
+     */
+    public boolean includes(BroadcastAudience audience, Long userId) {
+        if (audience == BroadcastAudience.ALL) {
+            return true;
+        }
+        Boolean admin = adminFlags.getIfPresent(userId);
+        if (admin == null) {
+            admin = load(Set.of(userId)).get(userId);
+        }
+        return audience.includes(admin);
+    }
+    
+    /**
+     * Pick the given users that belong to the audience
+     */
+    public Set<Long> select(BroadcastAudience audience, Collection<Long> userIds) {
+        if (audience == BroadcastAudience.ALL) {
+            return new HashSet<>(userIds);
+        }
+        Map<Long, Boolean> flags = new HashMap<>(adminFlags.getAllPresent(userIds));
+        List<Long> missing = userIds.stream()
+            .filter(userId -> !flags.containsKey(userId))
+            .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            flags.putAll(load(missing));
+        }
+        Set<Long> selected = new HashSet<>();
+        flags.forEach((userId, admin) -> {
+            if (audience.includes(admin)) {
+                selected.add(userId);
+            }
+        });
+        return selected;
+    }
+    
+    /**
+     * Forget the flag of a user that changed
+     */
+    public void invalidate(Long userId) {
+        adminFlags.invalidate(userId);
+    }
+    
+    /**
+     * Forget all flags, for user events that do not say which user changed
+     */
+    public void invalidateAll() {
+        adminFlags.invalidateAll();
+    }
+    
+    private Map<Long, Boolean> load(Collection<Long> userIds) {
+        Map<Long, Boolean> loaded = new HashMap<>();
+        for (Long userId : userIds) {
+            loaded.put(userId, false);
+        }
+        UserDirectoryClient.Lookup lookup = userDirectoryClient.lookupByIds(userIds);
+        for (UserRecipient user : lookup.users()) {
+            loaded.put(user.id(), user.isAdmin());
+        }
+        if (lookup.current()) {
+            adminFlags.putAll(loaded);
+        }
+        return loaded;
+    }
+}
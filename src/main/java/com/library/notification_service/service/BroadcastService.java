@@ -0,0 +1,303 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.dto.NotificationResponse;
+import com.library.notification_service.entity.Broadcast;
+import com.library.notification_service.entity.BroadcastAudience;
+import com.library.notification_service.entity.DeliveryChannel;
+import com.library.notification_service.entity.NotificationType;
+import com.library.notification_service.event.BroadcastCreatedEvent;
+import com.library.notification_service.event.NotificationsReadEvent;
+import com.library.notification_service.repository.BroadcastReceiptRepository;
+import com.library.notification_service.repository.BroadcastReceiptRepository.Receipt;
+import com.library.notification_service.repository.BroadcastRepository;
+import com.library.notification_service.repository.NotificationBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Fan-out-on-read broadcasts.
+ * A broadcast is stored once with its audience and merged into each user's notifications when
+ * they are read, so publishing costs the same whatever the number of users. Per-user state is
+ * only written once a user reads or dismisses a broadcast.
+ * The broadcasts of the visibility window are kept in memory, reloaded when a new broadcast is
+ * fanned out to this instance and at least every refresh interval, so a read only queries the
+ * user's own receipts, and only when some broadcast is visible to them.
+ * Broadcasts of types a user turned off in-app are not visible to that user.
+ */
+@Service
+public class BroadcastService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BroadcastService.class);
+    
+    private final BroadcastRepository broadcastRepository;
+    private final BroadcastReceiptRepository receiptRepository;
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final NotificationContentCache contentCache;
+    private final BroadcastAudienceResolver audienceResolver;
+    private final NotificationPreferenceService preferenceService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+    
+    @Value("${notification.broadcast.visible-days:90}")
+    private long visibleDays;
+    
+    @Value("${notification.broadcast.refresh-interval-seconds:60}")
+    private long refreshIntervalSeconds;
+    
+    public BroadcastService(BroadcastRepository broadcastRepository,
+                            BroadcastReceiptRepository receiptRepository,
+                            NotificationBatchRepository notificationBatchRepository,
+                            NotificationContentCache contentCache,
+                            BroadcastAudienceResolver audienceResolver,
+                            NotificationPreferenceService preferenceService,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher) {
+        this.broadcastRepository = broadcastRepository;
+        this.receiptRepository = receiptRepository;
+        this.notificationBatchRepository = notificationBatchRepository;
+        this.contentCache = contentCache;
+        this.audienceResolver = audienceResolver;
+        this.preferenceService = preferenceService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Publish a broadcast with a single content row and a single broadcast row
+     */
+    public Broadcast publish(NotificationType type, String title, String message, BroadcastAudience audience) {
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Broadcast broadcast = transactionTemplate.execute(status -> {
+            Long contentId = notificationBatchRepository.insertContent(title, message, createdAt);
+            Broadcast saved = broadcastRepository.save(new Broadcast(type, contentId, audience, createdAt));
+            eventPublisher.publishEvent(new BroadcastCreatedEvent(
+                NotificationResponse.fromBroadcast(saved.getId(), null, type, title, message, false, createdAt),
+                audience));
+            return saved;
+        });
+        contentCache.put(broadcast.getContentId(), title, message);
+        
+        logger.info("Published broadcast {} (ID: {}) to {}", type, broadcast.getId(), audience);
+        return broadcast;
+    }
+    
+    /**
+     * Get the broadcasts a user has not dismissed, oldest first
+     */
+    public List<NotificationResponse> getBroadcasts(Long userId, boolean unreadOnly) {
+        List<ActiveBroadcast> visible = visibleTo(userId);
+        if (visible.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, Receipt> receipts = receiptRepository.findByUser(userId, minId(visible));
+        Map<Long, RenderedNotification> texts = contentCache.getAll(
+            visible.stream().map(ActiveBroadcast::contentId).collect(Collectors.toSet()));
+        
+        List<NotificationResponse> responses = new ArrayList<>(visible.size());
+        for (ActiveBroadcast broadcast : visible) {
+            Receipt receipt = receipts.get(broadcast.id());
+            boolean read = receipt != null && receipt.read();
+            if ((receipt != null && receipt.dismissed()) || (unreadOnly && read)) {
+                continue;
+            }
+            RenderedNotification text = texts.get(broadcast.contentId());
+            if (text != null) {
+                responses.add(toResponse(broadcast, userId, text, read));
+            }
+        }
+        return responses;
+    }
+    
+    /**
+     * Count the broadcasts a user has not read
+     */
+    public long countUnread(Long userId) {
+        List<ActiveBroadcast> visible = visibleTo(userId);
+        if (visible.isEmpty()) {
+            return 0;
+        }
+        
+        Map<Long, Receipt> receipts = receiptRepository.findByUser(userId, minId(visible));
+        long unread = 0;
+        for (ActiveBroadcast broadcast : visible) {
+            Receipt receipt = receipts.get(broadcast.id());
+            if (receipt == null || !receipt.read()) {
+                unread++;
+            }
+        }
+        return unread;
+    }
+    
+    /**
+     * Mark a broadcast as read for a user
+     */
+    @Transactional
+    public NotificationResponse markAsRead(Long userId, Long broadcastId) {
+        ActiveBroadcast broadcast = findVisible(userId, broadcastId);
+        RenderedNotification text = contentCache.getAll(List.of(broadcast.contentId())).get(broadcast.contentId());
+        if (text == null) {
+            throw new RuntimeException("Broadcast not found with id: " + broadcastId);
+        }
+        if (receiptRepository.markRead(userId, List.of(broadcastId), LocalDateTime.now()) > 0) {
+            eventPublisher.publishEvent(new NotificationsReadEvent(userId, 1, false));
+        }
+        return toResponse(broadcast, userId, text, true);
+    }
+    
+    /**
+     * Hide a broadcast from a user's notifications; it also counts as read
+     */
+    @Transactional
+    public void dismiss(Long userId, Long broadcastId) {
+        findVisible(userId, broadcastId);
+        LocalDateTime now = LocalDateTime.now();
+        int newlyRead = receiptRepository.markRead(userId, List.of(broadcastId), now);
+        receiptRepository.dismiss(userId, broadcastId, now);
+        if (newlyRead > 0) {
+            eventPublisher.publishEvent(new NotificationsReadEvent(userId, 1, false));
+        }
+    }
+    
+    /**
+     * Mark every broadcast visible to a user as read
+     * Must be called inside the transaction that marks the user's notifications as read.
+     * Returns the number of broadcasts that were unread.
+     */
+    public int markAllAsRead(Long userId) {
+        List<ActiveBroadcast> visible = visibleTo(userId);
+        if (visible.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = visible.stream().map(ActiveBroadcast::id).collect(Collectors.toList());
+        return receiptRepository.markRead(userId, ids, LocalDateTime.now());
+    }
+    
+    /**
+     * Get the text of the given broadcasts, keyed by broadcast id
+     */
+    public Map<Long, RenderedNotification> getTexts(Collection<Long> broadcastIds) {
+        Map<Long, Long> contentIds = new HashMap<>();
+        for (Broadcast broadcast : broadcastRepository.findAllById(broadcastIds)) {
+            contentIds.put(broadcast.getId(), broadcast.getContentId());
+        }
+        Map<Long, RenderedNotification> contents = contentCache.getAll(contentIds.values());
+        
+        Map<Long, RenderedNotification> texts = new HashMap<>();
+        contentIds.forEach((broadcastId, contentId) -> {
+            RenderedNotification text = contents.get(contentId);
+            if (text != null) {
+                texts.put(broadcastId, text);
+            }
+        });
+        return texts;
+    }
+    
+    /**
+     * Reload the broadcasts of the visibility window, e.g. after a broadcast was published
+     */
+    public void refresh() {
+        loadLock.lock();
+        try {
+            snapshot = load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    private List<ActiveBroadcast> visibleTo(Long userId) {
+        List<ActiveBroadcast> active = current().broadcasts();
+        if (active.isEmpty()) {
+            return active;
+        }
+        List<ActiveBroadcast> visible = new ArrayList<>(active.size());
+        for (ActiveBroadcast broadcast : active) {
+            if (preferenceService.allows(userId, broadcast.type(), DeliveryChannel.IN_APP)
+                    && audienceResolver.includes(broadcast.audience(), userId)) {
+                visible.add(broadcast);
+            }
+        }
+        return visible;
+    }
+    
+    private ActiveBroadcast findVisible(Long userId, Long broadcastId) {
+        for (ActiveBroadcast broadcast : visibleTo(userId)) {
+            if (broadcast.id().equals(broadcastId)) {
+                return broadcast;
+            }
+        }
+        throw new RuntimeException("Broadcast not found with id: " + broadcastId);
+    }
+    
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired(refreshIntervalSeconds)) {
+            return current;
+        }
+        
+        // A lock rather than synchronized, so a waiting virtual thread does not pin its carrier
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (current == null || current.isExpired(refreshIntervalSeconds)) {
+                current = load();
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    private Snapshot load() {
+        LocalDateTime since = LocalDateTime.now().minusDays(visibleDays);
+        List<ActiveBroadcast> broadcasts = broadcastRepository.findByCreatedAtAfter(since).stream()
+            .sorted(Comparator.comparing(Broadcast::getCreatedAt))
+            .map(b -> new ActiveBroadcast(b.getId(), b.getType(), b.getContentId(), b.getAudience(), b.getCreatedAt()))
+            .collect(Collectors.toList());
+        return new Snapshot(List.copyOf(broadcasts), System.currentTimeMillis());
+    }
+    
+    private static Long minId(List<ActiveBroadcast> broadcasts) {
+        long min = Long.MAX_VALUE;
+        for (ActiveBroadcast broadcast : broadcasts) {
+            min = Math.min(min, broadcast.id());
+        }
+        return min;
+    }
+    
+    private static NotificationResponse toResponse(ActiveBroadcast broadcast, Long userId,
+                                                   RenderedNotification text, boolean read) {
+        return NotificationResponse.fromBroadcast(broadcast.id(), userId, broadcast.type(),
+                                                  text.title(), text.message(), read, broadcast.createdAt());
+    }
+    
+    // Kept instead of entities, so nothing cached is attached to a persistence context
+    private record ActiveBroadcast(Long id, NotificationType type, Long contentId,
+                                   BroadcastAudience audience, LocalDateTime createdAt) {}
+    
+    private record Snapshot(List<ActiveBroadcast> broadcasts, long loadedAt) {
+        
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - loadedAt > ttlSeconds * 1000;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.config.RabbitMQConfig;
+import com.library.notification_service.dto.DeadLetterMessage;
+import com.library.notification_service.listener.FailedMessageRecoverer;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inspection and replay of dead-lettered messages
+ */
+@Service
+public class DeadLetterService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+    
+    private static final int MAX_LIMIT = 500;
+    
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    
+    public DeadLetterService(RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+    }
+    
+    /**
+     * Number of messages in each dead-letter queue, keyed by source queue
+     */
+    public Map<String, Integer> getCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String queue : RabbitMQConfig.CONSUMED_QUEUES) {
+            QueueInformation info = amqpAdmin.getQueueInfo(queue + RabbitMQConfig.DEAD_LETTER_QUEUE_SUFFIX);
+            counts.put(queue, info != null ? info.getMessageCount() : 0);
+        }
+        return counts;
+    }
+    
+    /**
+     * Look at the oldest dead-lettered messages of a queue without removing them
+     */
+    public List<DeadLetterMessage> peek(String queue, int limit) {
+        String deadLetterQueue = deadLetterQueue(queue);
+        int max = checkLimit(limit);
+        
+        return rabbitTemplate.execute(channel -> {
+            List<DeadLetterMessage> messages = new ArrayList<>();
+            long lastDeliveryTag = -1;
+            try {
+                GetResponse response;
+                while (messages.size() < max && (response = channel.basicGet(deadLetterQueue, false)) != null) {
+                    lastDeliveryTag = response.getEnvelope().getDeliveryTag();
+                    messages.add(toDeadLetterMessage(queue, response));
+                }
+            } finally {
+                // Hand everything back in its original order
+                if (lastDeliveryTag >= 0) {
+                    channel.basicNack(lastDeliveryTag, true, true);
+                }
+            }
+            return messages;
+        });
+    }
+    
+    /**
+     * Move dead-lettered messages back onto their original queue with a fresh retry budget
+     * Returns the number of messages replayed.
+     */
+    public int replay(String queue, int limit) {
+        String deadLetterQueue = deadLetterQueue(queue);
+        int max = checkLimit(limit);
+        
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            int count = 0;
+            GetResponse response;
+            while (count < max && (response = channel.basicGet(deadLetterQueue, false)) != null) {
+                MessageProperties properties = toMessageProperties(response);
+                properties.getHeaders().remove(FailedMessageRecoverer.RETRY_COUNT_HEADER);
+                properties.getHeaders().remove(FailedMessageRecoverer.ORIGINAL_QUEUE_HEADER);
+                properties.getHeaders().remove(FailedMessageRecoverer.EXCEPTION_TYPE_HEADER);
+                properties.getHeaders().remove(FailedMessageRecoverer.EXCEPTION_MESSAGE_HEADER);
+                properties.getHeaders().remove(FailedMessageRecoverer.FAILED_AT_HEADER);
+                AMQP.BasicProperties basicProperties =
+                    propertiesConverter.fromMessageProperties(properties, StandardCharsets.UTF_8.name());
+                
+                // Publish before acking: a crash in between replays the message twice rather than losing it
+                channel.basicPublish("", queue, basicProperties, response.getBody());
+                channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                count++;
+            }
+            return count;
+        });
+        
+        logger.info("Replayed {} dead-lettered messages onto {}", replayed, queue);
+        return replayed != null ? replayed : 0;
+    }
+    
+    private DeadLetterMessage toDeadLetterMessage(String queue, GetResponse response) {
+        MessageProperties properties = toMessageProperties(response);
+        Object retryCount = properties.getHeader(FailedMessageRecoverer.RETRY_COUNT_HEADER);
+        return new DeadLetterMessage(
+            queue,
+            properties.getMessageId(),
+            retryCount instanceof Number number ? number.intValue() : 0,
+            headerValue(properties, FailedMessageRecoverer.EXCEPTION_TYPE_HEADER),
+            headerValue(properties, FailedMessageRecoverer.EXCEPTION_MESSAGE_HEADER),
+            headerValue(properties, FailedMessageRecoverer.FAILED_AT_HEADER),
+            new String(response.getBody(), StandardCharsets.UTF_8)
+        );
+    }
+    
+    private MessageProperties toMessageProperties(GetResponse response) {
+        return propertiesConverter.toMessageProperties(response.getProps(), response.getEnvelope(),
+                                                       StandardCharsets.UTF_8.name());
+    }
+    
+    private static String headerValue(MessageProperties properties, String name) {
+        Object value = properties.getHeader(name);
+        return value != null ? value.toString() : null;
+    }
+    
+    private static String deadLetterQueue(String queue) {
+        if (!RabbitMQConfig.CONSUMED_QUEUES.contains(queue)) {
+            throw new IllegalArgumentException("Unknown queue: " + queue);
+        }
+        return queue + RabbitMQConfig.DEAD_LETTER_QUEUE_SUFFIX;
+    }
+    
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,69 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.entity.NotificationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides when a queued email becomes due, so that EmailDispatcher can coalesce a user's emails.
+ * Emails are held for the coalescing window after they are queued; whatever else the same user
+ * has pending within that window goes out with them as one digest. Types sent as a daily digest
+ * are held until the next daily send time instead, and immediate types are not held at all.
+ */
+@Component
+public class EmailDigestPolicy {
+    
+    private final long coalesceWindowSeconds;
+    private final Set<NotificationType> immediateTypes;
+    private final Set<NotificationType> dailyTypes;
+    private final LocalTime dailyAt;
+    
+    public EmailDigestPolicy(@Value("${notification.email.digest.coalesce-window-seconds:120}") long coalesceWindowSeconds,
+                             @Value("${notification.email.digest.immediate-types:BOOKING_REMINDER,CHECK_IN_REMINDER}") List<NotificationType> immediateTypes,
+                             @Value("${notification.email.digest.daily-types:}") List<NotificationType> dailyTypes,
+                             @Value("${notification.email.digest.daily-at:08:00}") String dailyAt,
+                             @Value("${notification.email.lease-seconds:300}") long leaseSeconds) {
+        if (coalesceWindowSeconds < 0) {
+            throw new IllegalArgumentException("Coalescing window must not be negative");
+        }
+        // A delivery pulled in early keeps its lease from the claim, so the window has to end before it
+        if (coalesceWindowSeconds >= leaseSeconds) {
+            throw new IllegalArgumentException("Coalescing window must be shorter than the delivery lease");
+        }
+        this.coalesceWindowSeconds = coalesceWindowSeconds;
+        this.immediateTypes = toSet(immediateTypes);
+        this.dailyTypes = toSet(dailyTypes);
+        this.dailyAt = LocalTime.parse(dailyAt);
+    }
+    
+    /**
+     * When an email of the given type queued at the given time should first be attempted
+     */
+    public LocalDateTime firstAttemptAt(NotificationType type, LocalDateTime queuedAt) {
+        if (dailyTypes.contains(type)) {
+            LocalDateTime today = queuedAt.toLocalDate().atTime(dailyAt);
+            return queuedAt.isBefore(today) ? today : today.plusDays(1);
+        }
+        if (immediateTypes.contains(type)) {
+            return queuedAt;
+        }
+        return queuedAt.plusSeconds(coalesceWindowSeconds);
+    }
+    
+    /**
+     * Latest due time of pending emails that are sent along with an email due now
+     */
+    public LocalDateTime coalesceUntil(LocalDateTime now) {
+        return now.plusSeconds(coalesceWindowSeconds);
+    }
+    
+    private static Set<NotificationType> toSet(List<NotificationType> types) {
+        return types.isEmpty() ? EnumSet.noneOf(NotificationType.class) : EnumSet.copyOf(types);
+    }
+}
@@ -0,0 +1,447 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.entity.DeliveryStatus;
+import com.library.notification_service.entity.Notification;
+import com.library.notification_service.entity.NotificationDelivery;
+import com.library.notification_service.event.NotificationsCreatedEvent;
+import com.library.notification_service.repository.NotificationBatchRepository;
+import com.library.notification_service.repository.NotificationDeliveryRepository;
+import com.library.notification_service.repository.NotificationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Outbound email stage.
+ * Drains the notification_deliveries outbox: due rows are claimed with FOR UPDATE SKIP LOCKED
+ * so several replicas can poll in parallel, leased while the email worker pool sends them,
+ * and then marked sent or rescheduled with exponential backoff in batched updates.
+ * Deliveries whose notification was deleted meanwhile are marked failed without a retry.
+ * Each worker task sends a batch of up to max-messages-per-connection emails over one SMTP
+ * connection, so the pool size bounds the number of open connections.
+ * Along with each due delivery, the user's other pending deliveries that come due within the
+ * coalescing window are claimed too, as far as the poll's limit allows, and all of a user's
+ * claimed deliveries go out as one digest email. Only deliveries waiting for their first attempt
+ * are pulled in early; leased ones are marked with claimed_until and retries keep their backoff.
+ * EmailDigestPolicy decides how long deliveries are held back for this.
+ * Polls claim no more than EmailRateLimiter lets through shortly, and emails it holds back are
+ * put back in the outbox for when tokens are expected, without counting an attempt.
+ * Metrics: "notification.email.queue.depth" (email tasks waiting for a worker) and
+ * "notification.email.outbox.due" (due pending deliveries, counted periodically).
+ */
+@Service
+public class EmailDispatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    private static final String DIGEST_SEPARATOR = "\n\n--------------------\n\n";
+    
+    private final EmailService emailService;
+    private final NotificationRepository notificationRepository;
+    private final NotificationDeliveryRepository deliveryRepository;
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final ThreadPoolTaskExecutor emailExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationContentCache contentCache;
+    private final BroadcastService broadcastService;
+    private final EmailDigestPolicy digestPolicy;
+    private final EmailRateLimiter rateLimiter;
+    
+    private final Queue<NotificationDelivery> sent = new ConcurrentLinkedQueue<>();
+    private final Queue<DeliveryFailure> failed = new ConcurrentLinkedQueue<>();
+    private final Queue<DeliveryDeferral> deferred = new ConcurrentLinkedQueue<>();
+    private final AtomicLong outboxDue = new AtomicLong();
+    private final AtomicBoolean wakeUp = new AtomicBoolean(true);
+    private volatile long lastPollAt;
+    
+    @Value("${notification.email.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+    
+    @Value("${notification.email.poll-batch-size:200}")
+    private int pollBatchSize;
+    
+    @Value("${notification.email.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    @Value("${notification.email.max-attempts:8}")
+    private int maxAttempts;
+    
+    @Value("${notification.email.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+    
+    @Value("${notification.email.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+    
+    @Value("${notification.email.flush-batch-size:1000}")
+    private int flushBatchSize;
+    
+    @Value("${notification.email.max-messages-per-connection:50}")
+    private int maxMessagesPerConnection;
+    
+    public EmailDispatcher(EmailService emailService,
+                           NotificationRepository notificationRepository,
+                           NotificationDeliveryRepository deliveryRepository,
+                           NotificationBatchRepository notificationBatchRepository,
+                           @Qualifier("emailExecutor") ThreadPoolTaskExecutor emailExecutor,
+                           TransactionTemplate transactionTemplate,
+                           NotificationContentCache contentCache,
+                           BroadcastService broadcastService,
+                           EmailDigestPolicy digestPolicy,
+                           EmailRateLimiter rateLimiter,
+                           MeterRegistry meterRegistry) {
+        this.emailService = emailService;
+        this.notificationRepository = notificationRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.notificationBatchRepository = notificationBatchRepository;
+        this.emailExecutor = emailExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.contentCache = contentCache;
+        this.broadcastService = broadcastService;
+        this.digestPolicy = digestPolicy;
+        this.rateLimiter = rateLimiter;
+        
+        Gauge.builder("notification.email.queue.depth", emailExecutor,
+                      executor -> executor.getThreadPoolExecutor().getQueue().size())
+            .description("Email tasks waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("notification.email.outbox.due", outboxDue, AtomicLong::get)
+            .description("Pending email deliveries that are due")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Poll right away once new deliveries are committed instead of waiting for the interval
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationsCreated(NotificationsCreatedEvent event) {
+        wakeUp.set(true);
+    }
+    
+    /**
+     * Claim due deliveries and hand them to the email worker pool
+     */
+    @Scheduled(fixedDelayString = "${notification.email.wake-check-interval-ms:200}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        if (!wakeUp.getAndSet(false) && now - lastPollAt < pollIntervalMs) {
+            return;
+        }
+        lastPollAt = now;
+        
+        // Never claim more than the pool can queue; unclaimed rows stay available to other replicas
+        long queueRoom = (long) emailExecutor.getThreadPoolExecutor().getQueue().remainingCapacity() * maxMessagesPerConnection;
+        // Nor more than the rate limiter lets through soon; the rest would only be put back
+        int limit = (int) Math.min(Math.min(pollBatchSize, queueRoom), rateLimiter.permitsWithinMaxWait());
+        if (limit <= 0) {
+            return;
+        }
+        
+        List<NotificationDelivery> claimed;
+        try {
+            claimed = claim(limit);
+        } catch (Exception e) {
+            logger.error("Failed to claim email deliveries: {}", e.getMessage());
+            return;
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        if (claimed.size() == limit) {
+            wakeUp.set(true);
+        }
+        
+        List<Long> notificationIds = claimed.stream()
+            .map(NotificationDelivery::getNotificationId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        Map<Long, Notification> notifications = notificationRepository.findAllById(notificationIds).stream()
+            .collect(Collectors.toMap(Notification::getId, Function.identity()));
+        Set<Long> broadcastIds = claimed.stream()
+            .map(NotificationDelivery::getBroadcastId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<Long, RenderedNotification> broadcastTexts = broadcastIds.isEmpty()
+            ? Map.of()
+            : broadcastService.getTexts(broadcastIds);
+        
+        Map<Long, List<NotificationDelivery>> byUser = new LinkedHashMap<>();
+        Map<Long, List<RenderedNotification>> textsByUser = new HashMap<>();
+        for (NotificationDelivery delivery : claimed) {
+            RenderedNotification text = resolveText(delivery, notifications, broadcastTexts);
+            if (text == null) {
+                // Deleted by the user or by retention: retrying cannot bring it back
+                failed.add(new DeliveryFailure(delivery, "Notification no longer exists", true));
+                continue;
+            }
+            byUser.computeIfAbsent(delivery.getUserId(), userId -> new ArrayList<>()).add(delivery);
+            textsByUser.computeIfAbsent(delivery.getUserId(), userId -> new ArrayList<>()).add(text);
+        }
+        
+        List<PendingEmail> batch = new ArrayList<>(maxMessagesPerConnection);
+        for (Map.Entry<Long, List<NotificationDelivery>> entry : byUser.entrySet()) {
+            batch.add(new PendingEmail(entry.getValue(), toEmail(entry.getKey(), textsByUser.get(entry.getKey()))));
+            if (batch.size() == maxMessagesPerConnection) {
+                submit(batch);
+                batch = new ArrayList<>(maxMessagesPerConnection);
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(batch);
+        }
+    }
+    
+    /**
+     * A single notification is sent as it is; several are combined into one digest
+     */
+    private static OutboundEmail toEmail(Long userId, List<RenderedNotification> texts) {
+        if (texts.size() == 1) {
+            return new OutboundEmail(userId, texts.get(0).title(), texts.get(0).message());
+        }
+        StringBuilder message = new StringBuilder();
+        for (RenderedNotification text : texts) {
+            if (message.length() > 0) {
+                message.append(DIGEST_SEPARATOR);
+            }
+            message.append(text.title()).append("\n\n").append(text.message());
+        }
+        return new OutboundEmail(userId, "You have " + texts.size() + " new notifications", message.toString());
+    }
+    
+    private RenderedNotification resolveText(NotificationDelivery delivery, Map<Long, Notification> notifications,
+                                             Map<Long, RenderedNotification> broadcastTexts) {
+        if (delivery.getBroadcastId() != null) {
+            return broadcastTexts.get(delivery.getBroadcastId());
+        }
+        Notification notification = notifications.get(delivery.getNotificationId());
+        return notification != null ? contentCache.resolve(notification) : null;
+    }
+    
+    private void submit(List<PendingEmail> batch) {
+        try {
+            emailExecutor.execute(() -> deliver(batch));
+        } catch (TaskRejectedException e) {
+            // The lease runs out and the deliveries are claimed again
+            logger.warn("Email queue is full, {} emails will be retried after their lease", batch.size());
+        }
+    }
+    
+    private List<NotificationDelivery> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+            List<NotificationDelivery> due = deliveryRepository.lockDue(now, limit);
+            if (due.isEmpty()) {
+                return due;
+            }
+            
+            // Pick up what else the same users have pending within the window, so it goes out in one digest;
+            // the whole claim stays within the limit the rate limiter budgeted for
+            Map<Long, NotificationDelivery> claimed = new LinkedHashMap<>();
+            due.forEach(delivery -> claimed.put(delivery.getId(), delivery));
+            if (claimed.size() < limit) {
+                Set<Long> userIds = due.stream().map(NotificationDelivery::getUserId).collect(Collectors.toSet());
+                for (NotificationDelivery delivery : deliveryRepository.lockPendingForUsers(userIds,
+                                                                                            digestPolicy.coalesceUntil(now),
+                                                                                            limit)) {
+                    if (claimed.size() == limit) {
+                        break;
+                    }
+                    claimed.putIfAbsent(delivery.getId(), delivery);
+                }
+            }
+            for (NotificationDelivery delivery : claimed.values()) {
+                delivery.setAttemptCount(delivery.getAttemptCount() + 1);
+                delivery.setNextAttemptAt(leaseUntil);
+                delivery.setClaimedUntil(leaseUntil);
+            }
+            return new ArrayList<>(claimed.values());
+        });
+    }
+    
+    private void deliver(List<PendingEmail> batch) {
+        List<OutboundEmail> emails = batch.stream().map(PendingEmail::email).collect(Collectors.toList());
+        Map<OutboundEmail, Exception> failures = emailService.sendNotificationEmails(emails);
+        for (PendingEmail pending : batch) {
+            Exception failure = failures.get(pending.email());
+            if (failure == null) {
+                sent.addAll(pending.deliveries());
+            } else if (failure instanceof EmailThrottledException throttled) {
+                logger.debug("Email to user {} throttled: {}", pending.email().userId(), throttled.getMessage());
+                pending.deliveries().forEach(delivery ->
+                    deferred.add(new DeliveryDeferral(delivery, throttled.getRetryAfterMs())));
+            } else {
+                logger.error("Failed to send email of {} deliveries to user {}: {}",
+                             pending.deliveries().size(), pending.email().userId(), failure.getMessage());
+                pending.deliveries().forEach(delivery -> failed.add(new DeliveryFailure(delivery, failure.getMessage())));
+            }
+        }
+    }
+    
+    /**
+     * Record delivery outcomes, one transaction per batch
+     */
+    @Scheduled(fixedDelayString = "${notification.email.flush-interval-ms:500}")
+    public void flushOutcomes() {
+        List<NotificationDelivery> sentBatch = drain(sent);
+        for (int from = 0; from < sentBatch.size(); from += flushBatchSize) {
+            markSent(sentBatch.subList(from, Math.min(from + flushBatchSize, sentBatch.size())));
+        }
+        
+        List<DeliveryFailure> failedBatch = drain(failed);
+        for (int from = 0; from < failedBatch.size(); from += flushBatchSize) {
+            reschedule(failedBatch.subList(from, Math.min(from + flushBatchSize, failedBatch.size())));
+        }
+        
+        List<DeliveryDeferral> deferredBatch = drain(deferred);
+        for (int from = 0; from < deferredBatch.size(); from += flushBatchSize) {
+            defer(deferredBatch.subList(from, Math.min(from + flushBatchSize, deferredBatch.size())));
+        }
+    }
+    
+    /**
+     * Refresh the outbox backlog metric
+     */
+    @Scheduled(fixedDelayString = "${notification.email.backlog-metric-interval-ms:30000}")
+    public void countBacklog() {
+        try {
+            outboxDue.set(deliveryRepository.countDue(LocalDateTime.now()));
+        } catch (Exception e) {
+            logger.warn("Failed to count due email deliveries: {}", e.getMessage());
+        }
+    }
+    
+    private void markSent(List<NotificationDelivery> deliveries) {
+        List<Long> deliveryIds = new ArrayList<>(deliveries.size());
+        List<Long> notificationIds = new ArrayList<>(deliveries.size());
+        for (NotificationDelivery delivery : deliveries) {
+            deliveryIds.add(delivery.getId());
+            if (delivery.getNotificationId() != null) {
+                notificationIds.add(delivery.getNotificationId());
+            }
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                deliveryRepository.markSent(deliveryIds, LocalDateTime.now());
+                notificationBatchRepository.markEmailSent(notificationIds);
+            });
+        } catch (Exception e) {
+            logger.error("Failed to mark {} deliveries as sent, retrying on next flush: {}",
+                         deliveries.size(), e.getMessage());
+            sent.addAll(deliveries);
+        }
+    }
+    
+    private void reschedule(List<DeliveryFailure> failures) {
+        Map<Long, String> errors = failures.stream()
+            .collect(Collectors.toMap(f -> f.delivery().getId(), DeliveryFailure::error, (a, b) -> b));
+        Set<Long> permanent = failures.stream()
+            .filter(DeliveryFailure::permanent)
+            .map(f -> f.delivery().getId())
+            .collect(Collectors.toSet());
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (NotificationDelivery delivery : deliveryRepository.findAllById(errors.keySet())) {
+                    delivery.setClaimedUntil(null);
+                    delivery.setLastError(truncate(errors.get(delivery.getId())));
+                    if (permanent.contains(delivery.getId())) {
+                        delivery.setStatus(DeliveryStatus.FAILED);
+                        logger.warn("Giving up on delivery {}: {}", delivery.getId(), errors.get(delivery.getId()));
+                    } else if (delivery.getAttemptCount() >= maxAttempts) {
+                        delivery.setStatus(DeliveryStatus.FAILED);
+                        logger.warn("Giving up on delivery {} after {} attempts", delivery.getId(),
+                                    delivery.getAttemptCount());
+                    } else {
+                        delivery.setNextAttemptAt(now.plusSeconds(backoffSeconds(delivery.getAttemptCount())));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Failed to reschedule {} deliveries, they will be retried after their lease: {}",
+                         failures.size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Put throttled deliveries back for when tokens are expected; the claim's attempt is given back
+     */
+    private void defer(List<DeliveryDeferral> deferrals) {
+        Map<Long, Long> retryAfterMs = deferrals.stream()
+            .collect(Collectors.toMap(d -> d.delivery().getId(), DeliveryDeferral::retryAfterMs, Math::max));
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (NotificationDelivery delivery : deliveryRepository.findAllById(retryAfterMs.keySet())) {
+                    delivery.setClaimedUntil(null);
+                    delivery.setAttemptCount(Math.max(0, delivery.getAttemptCount() - 1));
+                    delivery.setNextAttemptAt(now.plusNanos(retryAfterMs.get(delivery.getId()) * 1_000_000L));
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Failed to defer {} throttled deliveries, they will be retried after their lease: {}",
+                         deferrals.size(), e.getMessage());
+        }
+    }
+    
+    private long backoffSeconds(int attempt) {
+        long delay = backoffBaseSeconds << Math.min(attempt - 1, 20);
+        return Math.min(delay, backoffMaxSeconds);
+    }
+    
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+    
+    private static <T> List<T> drain(Queue<T> queue) {
+        List<T> drained = new ArrayList<>();
+        T item;
+        while ((item = queue.poll()) != null) {
+            drained.add(item);
+        }
+        return drained;
+    }
+    
+    private record PendingEmail(List<NotificationDelivery> deliveries, OutboundEmail email) {}
+    
+    private record DeliveryFailure(NotificationDelivery delivery, String error, boolean permanent) {
+        
+        DeliveryFailure(NotificationDelivery delivery, String error) {
+            this(delivery, error, false);
+        }
+    }
+    
+    private record DeliveryDeferral(NotificationDelivery delivery, long retryAfterMs) {}
+}
@@ -0,0 +1,164 @@
+package com.library.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Outbound email rate limiter in front of the SMTP provider.
+ * Every email takes a token from a global bucket and from the bucket of its recipient's domain.
+ * A sender waits for its tokens when they come within max-wait-ms, which spreads a burst of
+ * emails evenly over time; beyond that the email is reported as throttled and EmailDispatcher
+ * puts it back in the outbox until tokens are expected, without counting a failed attempt.
+ * Domain buckets of domains not mailed for a while are dropped.
+ * Metrics: "notification.email.throttle.wait" (time spent waiting for tokens),
+ * "notification.email.throttle.deferred" (emails put back, by scope) and
+ * "notification.email.throttle.tokens" (global tokens available).
+ */
+@Component
+public class EmailRateLimiter {
+    
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    
+    private final boolean enabled;
+    private final double domainPerSecond;
+    private final double domainBurst;
+    private final long maxWaitNanos;
+    private final Cache<String, TokenBucket> domainBuckets;
+    
+    // Both buckets of an email are checked and taken together under the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TokenBucket globalBucket;
+    
+    private final Timer waitTimer;
+    private final Counter globalDeferred;
+    private final Counter domainDeferred;
+    
+    public EmailRateLimiter(MeterRegistry meterRegistry,
+                            @Value("${notification.email.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${notification.email.rate-limit.global-per-second:10}") double globalPerSecond,
+                            @Value("${notification.email.rate-limit.global-burst:50}") double globalBurst,
+                            @Value("${notification.email.rate-limit.domain-per-second:10}") double domainPerSecond,
+                            @Value("${notification.email.rate-limit.domain-burst:50}") double domainBurst,
+                            @Value("${notification.email.rate-limit.max-wait-ms:2000}") long maxWaitMs,
+                            @Value("${notification.email.rate-limit.domain-idle-minutes:10}") long domainIdleMinutes) {
+        this.enabled = enabled;
+        this.domainPerSecond = domainPerSecond;
+        this.domainBurst = domainBurst;
+        this.maxWaitNanos = maxWaitMs * NANOS_PER_MILLI;
+        this.globalBucket = new TokenBucket(globalPerSecond, globalBurst, System.nanoTime());
+        this.domainBuckets = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(domainIdleMinutes))
+            .build();
+        
+        this.waitTimer = Timer.builder("notification.email.throttle.wait")
+            .description("Time emails waited for rate limiter tokens")
+            .register(meterRegistry);
+        this.globalDeferred = Counter.builder("notification.email.throttle.deferred")
+            .tag("scope", "global")
+            .description("Emails put back in the outbox by the rate limiter")
+            .register(meterRegistry);
+        this.domainDeferred = Counter.builder("notification.email.throttle.deferred")
+            .tag("scope", "domain")
+            .description("Emails put back in the outbox by the rate limiter")
+            .register(meterRegistry);
+        Gauge.builder("notification.email.throttle.tokens", this, EmailRateLimiter::availableGlobalTokens)
+            .description("Global rate limiter tokens available")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Wait for the tokens to send one email to the given address
+     * Throws EmailThrottledException when they are not available within the maximum wait.
+     */
+    public void acquire(String address) {
+        if (!enabled) {
+            return;
+        }
+        String domain = domainOf(address);
+        long waitedNanos = 0;
+        while (true) {
+            long waitNanos;
+            boolean domainLimited;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                TokenBucket domainBucket = domainBuckets.get(domain, d -> new TokenBucket(domainPerSecond, domainBurst, now));
+                long globalWait = globalBucket.nanosUntilAvailable(now);
+                long domainWait = domainBucket.nanosUntilAvailable(now);
+                if (globalWait == 0 && domainWait == 0) {
+                    globalBucket.take();
+                    domainBucket.take();
+                    break;
+                }
+                waitNanos = Math.max(globalWait, domainWait);
+                domainLimited = domainWait > globalWait;
+            } finally {
+                lock.unlock();
+            }
+            
+            if (waitedNanos + waitNanos > maxWaitNanos) {
+                recordWait(waitedNanos);
+                (domainLimited ? domainDeferred : globalDeferred).increment();
+                throw new EmailThrottledException(domainLimited ? "domain " + domain : "global",
+                                                  Math.max(1, waitNanos / NANOS_PER_MILLI));
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                recordWait(waitedNanos);
+                throw new EmailThrottledException("interrupted", 0);
+            }
+            // Another sender may take the refilled token first, so check again
+            waitedNanos += waitNanos;
+        }
+        recordWait(waitedNanos);
+    }
+    
+    /**
+     * Upper bound on the emails the global bucket lets through within the maximum wait,
+     * so that callers do not take on work that would only be put back
+     */
+    public int permitsWithinMaxWait() {
+        if (!enabled) {
+            return Integer.MAX_VALUE;
+        }
+        lock.lock();
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, globalBucket.permitsWithin(System.nanoTime(), maxWaitNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private double availableGlobalTokens() {
+        lock.lock();
+        try {
+            return globalBucket.available(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void recordWait(long waitedNanos) {
+        if (waitedNanos > 0) {
+            waitTimer.record(waitedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static String domainOf(String address) {
+        int at = address.lastIndexOf('@');
+        return at >= 0 ? address.substring(at + 1).toLowerCase(Locale.ROOT) : "";
+    }
+}
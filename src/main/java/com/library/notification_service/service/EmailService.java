@@ -3,12 +3,21 @@ package com.library.notification_service.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 /**
  * Service for sending email notifications
+ * Recipient addresses are looked up through RecipientAddressResolver, and every email is
+ * paced by EmailRateLimiter before it is handed to the SMTP server.
  */
 @Service
 public class EmailService {
@@ -16,6 +25,8 @@ public class EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
     
     private final JavaMailSender mailSender;
+    private final RecipientAddressResolver addressResolver;
+    private final EmailRateLimiter rateLimiter;
     
     @Value("${spring.mail.from:noreply@library-system.edu}")
     private String fromEmail;
@@ -23,42 +34,90 @@ public class EmailService {
     @Value("${spring.mail.enabled:false}")
     private boolean emailEnabled;
     
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, RecipientAddressResolver addressResolver,
+                        EmailRateLimiter rateLimiter) {
         this.mailSender = mailSender;
+        this.addressResolver = addressResolver;
+        this.rateLimiter = rateLimiter;
     }
     
     /**
-     * Send notification email
-     * In development, this will just log. Configure SMTP in production.
+     * Send a batch of emails over a single SMTP connection
+     * Returns the emails that could not be sent, with the cause of each failure; emails held
+     * back by the rate limiter fail with EmailThrottledException. Tokens are taken before the
+     * connection is opened, so waiting for them does not hold a connection.
      */
-    public void sendNotificationEmail(Long userId, String subject, String message) {
+    public Map<OutboundEmail, Exception> sendNotificationEmails(List<OutboundEmail> emails) {
+        Map<OutboundEmail, Exception> failures = new IdentityHashMap<>();
         if (!emailEnabled) {
-            logger.info("Email sending is disabled. Would send email to user {}: Subject: {}, Message: {}", 
-                       userId, subject, message);
-            return;
+            for (OutboundEmail email : emails) {
+                logger.info("Email sending is disabled. Would send email to user {}: Subject: {}, Message: {}", 
+                           email.userId(), email.subject(), email.message());
+            }
+            return failures;
+        }
+        
+        Map<Long, String> addresses;
+        try {
+            addresses = addressResolver.resolve(emails.stream().map(OutboundEmail::userId).collect(Collectors.toSet()));
+        } catch (Exception e) {
+            emails.forEach(email -> failures.put(email, e));
+            logger.error("Failed to resolve addresses for batch of {} emails: {}", emails.size(), e.getMessage());
+            return failures;
+        }
+        
+        Map<SimpleMailMessage, OutboundEmail> byMessage = new IdentityHashMap<>();
+        List<SimpleMailMessage> messages = new ArrayList<>(emails.size());
+        for (OutboundEmail email : emails) {
+            String toEmail = addresses.get(email.userId());
+            if (toEmail == null) {
+                failures.put(email, new IllegalStateException("No email address for user " + email.userId()));
+                continue;
+            }
+            try {
+                rateLimiter.acquire(toEmail);
+            } catch (EmailThrottledException e) {
+                failures.put(email, e);
+                continue;
+            }
+            SimpleMailMessage mailMessage = toMailMessage(toEmail, email.subject(), email.message());
+            messages.add(mailMessage);
+            byMessage.put(mailMessage, email);
+        }
+        if (messages.isEmpty()) {
+            return failures;
         }
         
         try {
-            // In a real system, you would fetch user email from User Service
-            // For now, we'll use a placeholder
-            String toEmail = "user" + userId + "@university.edu";
-            
-            SimpleMailMessage email = new SimpleMailMessage();
-            email.setFrom(fromEmail);
-            email.setTo(toEmail);
-            email.setSubject(subject);
-            email.setText(message);
-            
-            mailSender.send(email);
-            logger.info("Email sent successfully to user: {}", userId);
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+            logger.info("Sent batch of {} emails", messages.size());
+        } catch (MailSendException e) {
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                // Connection or authentication failure: nothing in the batch went out
+                byMessage.values().forEach(email -> failures.put(email, e));
+            } else {
+                failedMessages.forEach((message, cause) -> {
+                    OutboundEmail email = byMessage.get(message);
+                    if (email != null) {
+                        failures.put(email, cause);
+                    }
+                });
+            }
+            logger.error("Failed to send {} of {} emails in batch: {}", failures.size(), emails.size(), e.getMessage());
         } catch (Exception e) {
-            logger.error("Failed to send email to user {}: {}", userId, e.getMessage());
-            throw e;
+            byMessage.values().forEach(email -> failures.put(email, e));
+            logger.error("Failed to send batch of {} emails: {}", emails.size(), e.getMessage());
         }
+        return failures;
+    }
+    
+    private SimpleMailMessage toMailMessage(String toEmail, String subject, String message) {
+        SimpleMailMessage email = new SimpleMailMessage();
+        email.setFrom(fromEmail);
+        email.setTo(toEmail);
+        email.setSubject(subject);
+        email.setText(message);
+        return email;
     }
 }
-
-
-
-
-
@@ -0,0 +1,19 @@
+package com.library.notification_service.service;
+
+/**
+ * An email was held back by the outbound rate limiter; it should be retried after retryAfterMs
+ * without counting as a failed attempt
+ */
+public class EmailThrottledException extends RuntimeException {
+    
+    private final long retryAfterMs;
+    
+    public EmailThrottledException(String scope, long retryAfterMs) {
+        super("Outbound email rate limit (" + scope + ") reached, retry in " + retryAfterMs + " ms");
+        this.retryAfterMs = retryAfterMs;
+    }
+    
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,87 @@
+package com.library.notification_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Hierarchical timing wheel of keys that become due at given times.
+ * Each level has wheelSize buckets of one tick; a key too far out for a level goes to a coarser
+ * overflow level, created on demand, and moves down to finer levels as its bucket comes up.
+ * Adding a key and advancing by one tick cost O(1) however many keys are scheduled.
+ * A key comes due when the clock reaches the start of the tick its time falls in, so up to one
+ * tick early. Not thread-safe.
+ */
+public final class HierarchicalTimingWheel<K> {
+    
+    private final long tickMs;
+    private final int wheelSize;
+    private final long intervalMs;
+    private final List<List<Entry<K>>> buckets;
+    private long currentTimeMs;
+    private HierarchicalTimingWheel<K> overflow;
+    
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.intervalMs = tickMs * wheelSize;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTimeMs = startMs - startMs % tickMs;
+    }
+    
+    /**
+     * Schedule a key
+     * Returns false when the key is already due; it is then not added and must be handled now.
+     */
+    public boolean add(K key, long dueAtMs) {
+        if (dueAtMs < currentTimeMs + tickMs) {
+            return false;
+        }
+        if (dueAtMs < currentTimeMs + intervalMs) {
+            bucket(dueAtMs).add(new Entry<>(key, dueAtMs));
+            return true;
+        }
+        if (overflow == null) {
+            overflow = new HierarchicalTimingWheel<>(intervalMs, wheelSize, currentTimeMs);
+        }
+        return overflow.add(key, dueAtMs);
+    }
+    
+    /**
+     * Move the clock forward to nowMs, handing every key that came due to the consumer with its due time
+     */
+    public void advance(long nowMs, BiConsumer<K, Long> due) {
+        while (nowMs >= currentTimeMs + tickMs) {
+            currentTimeMs += tickMs;
+            // A full turn of this level brings the next bucket of the coarser level down into it
+            if (overflow != null && currentTimeMs % intervalMs == 0) {
+                overflow.advance(currentTimeMs, (key, dueAtMs) -> {
+                    if (!add(key, dueAtMs)) {
+                        due.accept(key, dueAtMs);
+                    }
+                });
+            }
+            
+            List<Entry<K>> bucket = bucket(currentTimeMs);
+            if (!bucket.isEmpty()) {
+                List<Entry<K>> expired = new ArrayList<>(bucket);
+                bucket.clear();
+                for (Entry<K> entry : expired) {
+                    due.accept(entry.key(), entry.dueAtMs());
+                }
+            }
+        }
+    }
+    
+    private List<Entry<K>> bucket(long timeMs) {
+        return buckets.get((int) ((timeMs / tickMs) % wheelSize));
+    }
+    
+    private record Entry<K>(K key, long dueAtMs) {}
+}
@@ -0,0 +1,112 @@
+package com.library.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.library.notification_service.dto.NotificationResponse;
+import com.library.notification_service.entity.Notification;
+import com.library.notification_service.entity.NotificationContent;
+import com.library.notification_service.repository.NotificationContentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Shared broadcast content by id.
+ * Content never changes once written and only a few broadcasts are recent at any time,
+ * so a small cache serves almost every lookup. Values are kept as plain title/message pairs
+ * rather than entities, so nothing cached is attached to a persistence context.
+ * Hit and miss counts are published as cache metrics under "notification.content".
+ */
+@Component
+public class NotificationContentCache {
+    
+    private final LoadingCache<Long, RenderedNotification> contents;
+    
+    public NotificationContentCache(NotificationContentRepository contentRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${notification.content-cache.max-size:1000}") long maxSize) {
+        this.contents = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build(new CacheLoader<Long, RenderedNotification>() {
+                @Override
+                public RenderedNotification load(Long id) {
+                    return contentRepository.findById(id).map(NotificationContentCache::toText).orElse(null);
+                }
+                
+                @Override
+                public Map<Long, RenderedNotification> loadAll(Set<? extends Long> ids) {
+                    Map<Long, RenderedNotification> loaded = new HashMap<>();
+                    for (NotificationContent content : contentRepository.findAllById(ids)) {
+                        loaded.put(content.getId(), toText(content));
+                    }
+                    return loaded;
+                }
+            });
+        CaffeineCacheMetrics.monitor(meterRegistry, contents, "notification.content");
+    }
+    
+    /**
+     * Remember content that was just written, so its first readers do not load it
+     */
+    public void put(Long contentId, String title, String message) {
+        contents.put(contentId, new RenderedNotification(title, message));
+    }
+    
+    /**
+     * Get shared content by id, loading any missing entries in one query
+     * Ids whose content no longer exists are missing from the result.
+     */
+    public Map<Long, RenderedNotification> getAll(Collection<Long> contentIds) {
+        return contents.getAll(contentIds);
+    }
+    
+    /**
+     * Get the title and message of a notification, whether stored inline or shared
+     */
+    public RenderedNotification resolve(Notification notification) {
+        if (notification.getContentId() == null) {
+            return new RenderedNotification(notification.getTitle(), notification.getMessage());
+        }
+        RenderedNotification content = contents.get(notification.getContentId());
+        return content != null ? content : new RenderedNotification(notification.getTitle(), notification.getMessage());
+    }
+    
+    /**
+     * Convert a notification to a response with its text resolved
+     */
+    public NotificationResponse toResponse(Notification notification) {
+        RenderedNotification text = resolve(notification);
+        return NotificationResponse.fromNotification(notification, text.title(), text.message());
+    }
+    
+    /**
+     * Convert notifications to responses, loading any missing shared content in one query
+     */
+    public List<NotificationResponse> toResponses(List<Notification> notifications) {
+        Set<Long> contentIds = notifications.stream()
+            .map(Notification::getContentId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (!contentIds.isEmpty()) {
+            contents.getAll(contentIds);
+        }
+        return notifications.stream()
+            .map(this::toResponse)
+            .collect(Collectors.toList());
+    }
+    
+    private static RenderedNotification toText(NotificationContent content) {
+        return new RenderedNotification(content.getTitle(), content.getMessage());
+    }
+}
@@ -0,0 +1,14 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.entity.NotificationType;
+
+/**
+ * A notification to be created as part of a bulk write
+ * eventKey identifies the source event; drafts whose key was already processed are skipped.
+ */
+public record NotificationDraft(Long userId, NotificationType type, String title, String message, String eventKey) {
+    
+    public NotificationDraft(Long userId, NotificationType type, String title, String message) {
+        this(userId, type, title, message, null);
+    }
+}
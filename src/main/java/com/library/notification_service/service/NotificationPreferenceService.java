@@ -0,0 +1,202 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.dto.NotificationPreference;
+import com.library.notification_service.entity.DeliveryChannel;
+import com.library.notification_service.entity.NotificationType;
+import com.library.notification_service.event.NotificationPreferencesChangedEvent;
+import com.library.notification_service.repository.NotificationPreferenceRepository;
+import com.library.notification_service.repository.NotificationPreferenceRepository.Preference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-user notification preferences by type and channel.
+ * Everything is enabled unless a user turned it off. Every user's opt-outs are held in memory as
+ * one bit per type and channel in a single long, so the checks made for each recipient when
+ * notifications are created never query the database; users without opt-outs take no memory.
+ * All rows are loaded on first use. Changes made on this instance apply right away, other
+ * instances reload a user when the change is fanned out to them, and recently updated rows are
+ * polled periodically in case a fan-out was missed.
+ * Turning IN_APP off for a type means notifications of that type are not created at all, so they
+ * are not emailed either; EMAIL only controls the email.
+ */
+@Service
+public class NotificationPreferenceService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPreferenceService.class);
+    
+    private static final int CHANNELS = DeliveryChannel.values().length;
+    
+    static {
+        if (NotificationType.values().length * CHANNELS > Long.SIZE) {
+            throw new IllegalStateException("Notification preferences no longer fit in a long per user");
+        }
+    }
+    
+    private final NotificationPreferenceRepository preferenceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<Long, Long> disabledMasks = new ConcurrentHashMap<>();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+    private LocalDateTime lastUpdatedAt;
+    
+    @Value("${notification.preferences.refresh-overlap-seconds:60}")
+    private long refreshOverlapSeconds;
+    
+    public NotificationPreferenceService(NotificationPreferenceRepository preferenceRepository,
+                                         TransactionTemplate transactionTemplate,
+                                         ApplicationEventPublisher eventPublisher) {
+        this.preferenceRepository = preferenceRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Tell whether a user receives a notification type over a channel
+     */
+    public boolean allows(Long userId, NotificationType type, DeliveryChannel channel) {
+        if (!loaded) {
+            ensureLoaded();
+        }
+        Long mask = disabledMasks.get(userId);
+        return mask == null || (mask & bit(type, channel)) == 0;
+    }
+    
+    /**
+     * Pick the given users that receive a notification type over a channel, keeping their order
+     */
+    public List<Long> select(Collection<Long> userIds, NotificationType type, DeliveryChannel channel) {
+        List<Long> selected = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            if (allows(userId, type, channel)) {
+                selected.add(userId);
+            }
+        }
+        return selected;
+    }
+    
+    /**
+     * Get a user's setting for every notification type and channel
+     */
+    public List<NotificationPreference> getPreferences(Long userId) {
+        List<NotificationPreference> preferences = new ArrayList<>(NotificationType.values().length * CHANNELS);
+        for (NotificationType type : NotificationType.values()) {
+            for (DeliveryChannel channel : DeliveryChannel.values()) {
+                preferences.add(new NotificationPreference(type, channel, allows(userId, type, channel)));
+            }
+        }
+        return preferences;
+    }
+    
+    /**
+     * Store the given settings of a user; types and channels not mentioned keep their setting
+     */
+    public List<NotificationPreference> updatePreferences(Long userId, List<NotificationPreference> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("At least one preference is required");
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Preference> rows = new ArrayList<>(changes.size());
+        for (NotificationPreference change : changes) {
+            if (change.getType() == null || change.getChannel() == null) {
+                throw new IllegalArgumentException("Preference type and channel are required");
+            }
+            rows.add(new Preference(userId, change.getType(), change.getChannel(), change.isEnabled(), now));
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            preferenceRepository.upsert(rows);
+            eventPublisher.publishEvent(new NotificationPreferencesChangedEvent(userId));
+        });
+        reload(userId);
+        logger.info("Updated {} notification preferences of user {}", rows.size(), userId);
+        return getPreferences(userId);
+    }
+    
+    /**
+     * Reload one user's preferences, after another instance reported a change
+     */
+    public void reload(Long userId) {
+        long mask = 0;
+        for (Preference preference : preferenceRepository.findByUser(userId)) {
+            if (!preference.enabled()) {
+                mask |= bit(preference.type(), preference.channel());
+            }
+        }
+        setMask(userId, mask);
+    }
+    
+    /**
+     * Pick up recently updated rows; the overlap covers rows committed after a later timestamp was seen
+     */
+    @Scheduled(fixedDelayString = "${notification.preferences.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!loaded) {
+            ensureLoaded();
+            return;
+        }
+        loadLock.lock();
+        try {
+            load(lastUpdatedAt != null ? lastUpdatedAt.minusSeconds(refreshOverlapSeconds) : null);
+        } catch (Exception e) {
+            logger.error("Failed to refresh notification preferences: {}", e.getMessage());
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    private void ensureLoaded() {
+        // A lock rather than synchronized, so a waiting virtual thread does not pin its carrier
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                load(null);
+                loaded = true;
+                logger.info("Loaded notification preferences of {} users", disabledMasks.size());
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    private void load(LocalDateTime since) {
+        preferenceRepository.forEachChangedSince(since, preference -> {
+            long bit = bit(preference.type(), preference.channel());
+            disabledMasks.compute(preference.userId(), (userId, mask) -> {
+                long current = mask != null ? mask : 0;
+                long updated = preference.enabled() ? current & ~bit : current | bit;
+                return updated != 0 ? updated : null;
+            });
+            if (lastUpdatedAt == null || preference.updatedAt().isAfter(lastUpdatedAt)) {
+                lastUpdatedAt = preference.updatedAt();
+            }
+        });
+    }
+    
+    private void setMask(Long userId, long mask) {
+        if (mask == 0) {
+            disabledMasks.remove(userId);
+        } else {
+            disabledMasks.put(userId, mask);
+        }
+    }
+    
+    private static long bit(NotificationType type, DeliveryChannel channel) {
+        return 1L << (type.ordinal() * CHANNELS + channel.ordinal());
+    }
+}
@@ -0,0 +1,154 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.repository.NotificationRetentionRepository;
+import com.library.notification_service.repository.NotificationRetentionRepository.RetentionChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Upkeep of the monthly partitions of the notifications table.
+ * Partitions are created premake-months ahead, at startup and on every run, so inserts always
+ * find one. Read notifications older than read-days are then moved to notifications_archive, or
+ * deleted when archiving is off, in chunks of batch-size rows that each commit on their own, so
+ * no lock is held for long. Partitions that end before the cutoff and were left empty are
+ * detached and dropped; old unread notifications keep their partition.
+ * The nightly run goes to the maintenance executor, as it can take a while on a large table.
+ */
+@Service
+public class NotificationRetentionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionService.class);
+    
+    private final NotificationRetentionRepository retentionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor maintenanceExecutor;
+    
+    @Value("${notification.retention.read-days:180}")
+    private long readDays;
+    
+    @Value("${notification.retention.archive:true}")
+    private boolean archive;
+    
+    @Value("${notification.retention.batch-size:5000}")
+    private int batchSize;
+    
+    @Value("${notification.retention.premake-months:3}")
+    private int premakeMonths;
+    
+    @Value("${notification.retention.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+    
+    public NotificationRetentionService(NotificationRetentionRepository retentionRepository,
+                                        TransactionTemplate transactionTemplate,
+                                        @Qualifier("maintenanceExecutor") ThreadPoolTaskExecutor maintenanceExecutor) {
+        this.retentionRepository = retentionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            createPartitions();
+        } catch (Exception e) {
+            logger.error("Failed to create upcoming notification partitions: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Create upcoming partitions, then apply retention; a read-days of 0 keeps everything
+     */
+    @Scheduled(cron = "${notification.retention.cron:0 0 4 * * *}")
+    public void scheduleRun() {
+        maintenanceExecutor.execute(this::run);
+    }
+    
+    private void run() {
+        try {
+            createPartitions();
+        } catch (Exception e) {
+            logger.error("Failed to create upcoming notification partitions: {}", e.getMessage());
+        }
+        if (readDays <= 0) {
+            return;
+        }
+        
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(readDays);
+        try {
+            removeReadBefore(cutoff);
+        } catch (Exception e) {
+            logger.error("Notification retention stopped early: {}", e.getMessage());
+        }
+        dropEmptyPartitionsBefore(cutoff);
+    }
+    
+    private void createPartitions() {
+        // New months continue after the latest monthly partition; earlier ranges are covered already
+        YearMonth latest = retentionRepository.findPartitionNames().stream()
+            .map(NotificationRetentionRepository::monthOf)
+            .filter(Objects::nonNull)
+            .max(YearMonth::compareTo)
+            .orElse(null);
+        if (latest == null) {
+            logger.warn("No monthly notification partitions found; not creating any");
+            return;
+        }
+        
+        YearMonth last = YearMonth.now().plusMonths(premakeMonths);
+        for (YearMonth month = latest.plusMonths(1); !month.isAfter(last); month = month.plusMonths(1)) {
+            YearMonth next = month;
+            transactionTemplate.executeWithoutResult(status -> retentionRepository.createMonthlyPartition(next));
+            logger.info("Created notification partition {}", NotificationRetentionRepository.monthlyPartitionName(next));
+        }
+    }
+    
+    private void removeReadBefore(LocalDateTime cutoff) {
+        LocalDateTime archivedAt = archive ? LocalDateTime.now() : null;
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            long from = afterId;
+            RetentionChunk chunk = transactionTemplate.execute(status ->
+                retentionRepository.removeReadChunk(from, batchSize, cutoff, archivedAt));
+            if (chunk == null || chunk.lastId() == null) {
+                break;
+            }
+            total += chunk.removed();
+            // Ids follow creation order, so once a whole chunk is newer than the cutoff the rest is too
+            if (!chunk.oldest().isBefore(cutoff)) {
+                break;
+            }
+            afterId = chunk.lastId();
+        }
+        logger.info("{} {} read notifications created before {}", archive ? "Archived" : "Deleted", total, cutoff);
+    }
+    
+    private void dropEmptyPartitionsBefore(LocalDateTime cutoff) {
+        List<String> partitions = retentionRepository.findPartitionNames();
+        for (String partition : partitions) {
+            try {
+                if (!NotificationRetentionRepository.endOf(partition).isAfter(cutoff)
+                        && retentionRepository.isEmpty(partition)) {
+                    transactionTemplate.executeWithoutResult(status ->
+                        retentionRepository.dropPartition(partition, lockTimeoutMs));
+                    logger.info("Dropped empty notification partition {}", partition);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to drop notification partition {}: {}", partition, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,20 +1,39 @@
 package com.library.notification_service.service;
 
+import com.library.notification_service.dto.NotificationPage;
 import com.library.notification_service.dto.NotificationResponse;
+import com.library.notification_service.dto.NotificationSummary;
+import com.library.notification_service.entity.Broadcast;
+import com.library.notification_service.entity.BroadcastAudience;
+import com.library.notification_service.entity.DeliveryChannel;
 import com.library.notification_service.entity.Notification;
+import com.library.notification_service.entity.NotificationDelivery;
 import com.library.notification_service.entity.NotificationType;
+import com.library.notification_service.event.BroadcastNotificationsCreatedEvent;
+import com.library.notification_service.event.NotificationsCreatedEvent;
+import com.library.notification_service.event.NotificationsReadEvent;
+import com.library.notification_service.repository.NotificationBatchRepository;
+import com.library.notification_service.repository.NotificationDeliveryRepository;
 import com.library.notification_service.repository.NotificationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -25,62 +44,217 @@ public class NotificationService {
     
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     
+    // Lower bound of history listings; older than any notification, so no partition is skipped
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
     private final NotificationRepository notificationRepository;
-    private final EmailService emailService;
-    private final RestTemplate restTemplate;
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final NotificationDeliveryRepository deliveryRepository;
+    private final UserDirectoryClient userDirectoryClient;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UnreadCountCache unreadCountCache;
+    private final ProcessedEventStore processedEventStore;
+    private final NotificationContentCache contentCache;
+    private final BroadcastService broadcastService;
+    private final EmailDigestPolicy digestPolicy;
+    private final NotificationPreferenceService preferenceService;
+    
+    @Value("${notification.broadcast.batch-size:1000}")
+    private int broadcastBatchSize;
+    
+    @Value("${notification.broadcast.fan-out-on-read:false}")
+    private boolean fanOutOnRead;
+    
+    @Value("${notification.listing.max-page-size:100}")
+    private int maxPageSize;
     
-    @Value("${user-service-url}")
-    private String userServiceUrl;
+    @Value("${notification.listing.recent-days:90}")
+    private long recentDays;
     
     public NotificationService(NotificationRepository notificationRepository,
-                              EmailService emailService,
-                              RestTemplate restTemplate) {
+                              NotificationBatchRepository notificationBatchRepository,
+                              NotificationDeliveryRepository deliveryRepository,
+                              UserDirectoryClient userDirectoryClient,
+                              TransactionTemplate transactionTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              UnreadCountCache unreadCountCache,
+                              ProcessedEventStore processedEventStore,
+                              NotificationContentCache contentCache,
+                              BroadcastService broadcastService,
+                              EmailDigestPolicy digestPolicy,
+                              NotificationPreferenceService preferenceService) {
         this.notificationRepository = notificationRepository;
-        this.emailService = emailService;
-        this.restTemplate = restTemplate;
+        this.notificationBatchRepository = notificationBatchRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.userDirectoryClient = userDirectoryClient;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.unreadCountCache = unreadCountCache;
+        this.processedEventStore = processedEventStore;
+        this.contentCache = contentCache;
+        this.broadcastService = broadcastService;
+        this.digestPolicy = digestPolicy;
+        this.preferenceService = preferenceService;
     }
     
     /**
-     * Create and send a notification
+     * Create a batch of notifications in one transaction
+     * Inserts are sent to the database in JDBC batches; emails are queued in the delivery outbox,
+     * held back as EmailDigestPolicy decides so that they can be coalesced with the user's other emails.
+     * Drafts whose source event was already processed, or whose user turned the type off, are skipped.
      */
     @Transactional
-    public NotificationResponse createNotification(Long userId, NotificationType type,
-                                                   String title, String message) {
-        logger.info("Creating notification for user: {}, type: {}", userId, type);
+    public List<NotificationResponse> createNotifications(List<NotificationDraft> drafts) {
+        return createNotifications(drafts, claimed -> {});
+    }
+    
+    /**
+     * Create a batch of notifications, and act on the events seen for the first time in the same transaction
+     * onNew receives the drafts whose source event was not processed before, including those of
+     * users who turned the type off, so that side effects of an event happen once with it.
+     */
+    @Transactional
+    public List<NotificationResponse> createNotifications(List<NotificationDraft> drafts,
+                                                          Consumer<List<NotificationDraft>> onNew) {
+        drafts = skipProcessedEvents(drafts);
+        if (!drafts.isEmpty()) {
+            onNew.accept(drafts);
+        }
+        drafts = drafts.stream()
+            .filter(draft -> preferenceService.allows(draft.userId(), draft.type(), DeliveryChannel.IN_APP))
+            .collect(Collectors.toList());
+        if (drafts.isEmpty()) {
+            return List.of();
+        }
+        logger.info("Creating {} notifications in bulk", drafts.size());
+        
+        List<Notification> notifications = new ArrayList<>(drafts.size());
+        for (NotificationDraft draft : drafts) {
+            notifications.add(new Notification(draft.userId(), draft.type(), draft.title(), draft.message()));
+        }
+        notifications = notificationRepository.saveAll(notifications);
         
-        Notification notification = new Notification(userId, type, title, message);
-        notification = notificationRepository.save(notification);
+        List<NotificationDelivery> deliveries = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            if (preferenceService.allows(notification.getUserId(), notification.getType(), DeliveryChannel.EMAIL)) {
+                deliveries.add(emailDelivery(notification));
+            }
+        }
+        deliveryRepository.saveAll(deliveries);
+        eventPublisher.publishEvent(new NotificationsCreatedEvent(notifications));
         
-        // Send email asynchronously
-        try {
-            emailService.sendNotificationEmail(userId, title, message);
-            notification.setEmailSent(true);
-            notificationRepository.save(notification);
-        } catch (Exception e) {
-            logger.error("Failed to send email notification: {}", e.getMessage());
-            // Continue even if email fails
+        return notifications.stream()
+            .map(NotificationResponse::fromNotification)
+            .collect(Collectors.toList());
+    }
+    
+    private NotificationDelivery emailDelivery(Notification notification) {
+        NotificationDelivery delivery = new NotificationDelivery(notification.getId(), notification.getUserId(),
+                                                                 DeliveryChannel.EMAIL);
+        delivery.setNextAttemptAt(digestPolicy.firstAttemptAt(notification.getType(), LocalDateTime.now()));
+        return delivery;
+    }
+    
+    private List<NotificationDraft> skipProcessedEvents(List<NotificationDraft> drafts) {
+        List<String> eventKeys = drafts.stream()
+            .map(NotificationDraft::eventKey)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        if (eventKeys.isEmpty()) {
+            return drafts;
         }
         
-        logger.info("Notification created successfully: {} (ID: {})", type, notification.getId());
-        return NotificationResponse.fromNotification(notification);
+        Set<String> claimed = processedEventStore.claim(eventKeys);
+        List<NotificationDraft> accepted = new ArrayList<>(drafts.size());
+        for (NotificationDraft draft : drafts) {
+            // remove() also drops a second copy of the same event within the batch
+            if (draft.eventKey() == null || claimed.remove(draft.eventKey())) {
+                accepted.add(draft);
+            }
+        }
+        if (accepted.size() < drafts.size()) {
+            logger.info("Skipped {} already processed events", drafts.size() - accepted.size());
+        }
+        return accepted;
     }
     
     /**
-     * Get notifications by user ID
+     * Get notifications by user ID, including fan-out-on-read broadcasts the user has not dismissed
+     * Only notifications of the recent window are listed unless history is requested.
      */
-    public List<NotificationResponse> getNotificationsByUserId(Long userId) {
-        return notificationRepository.findByUserId(userId).stream()
-            .map(NotificationResponse::fromNotification)
-            .collect(Collectors.toList());
+    public List<NotificationResponse> getNotificationsByUserId(Long userId, boolean history) {
+        List<Notification> notifications = history
+            ? notificationRepository.findByUserId(userId)
+            : notificationRepository.findByUserIdAndCreatedAtGreaterThanEqual(userId, recentSince());
+        return withBroadcasts(contentCache.toResponses(notifications),
+                              broadcastService.getBroadcasts(userId, false));
+    }
+    
+    /**
+     * Get one page of notification summaries for a user, newest first
+     * The cursor has the form "createdAt,id" and is taken from the previous page.
+     * Pages stop at the recent window unless history is requested.
+     */
+    public NotificationPage getNotificationPage(Long userId, String before, int limit, boolean history) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        
+        // Fetch one extra row to know whether another page follows
+        PageRequest page = PageRequest.of(0, limit + 1);
+        LocalDateTime since = history ? HISTORY_START : recentSince();
+        List<NotificationSummary> items;
+        if (before == null || before.isBlank()) {
+            items = notificationRepository.findSummariesByUserId(userId, since, page);
+        } else {
+            int separator = before.lastIndexOf(',');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + before);
+            }
+            try {
+                LocalDateTime createdAt = LocalDateTime.parse(before.substring(0, separator));
+                Long id = Long.valueOf(before.substring(separator + 1));
+                items = notificationRepository.findSummariesByUserIdBefore(userId, since, createdAt, id, page);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + before);
+            }
+        }
+        
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            NotificationSummary last = items.get(limit - 1);
+            nextCursor = last.getCreatedAt() + "," + last.getId();
+        }
+        return new NotificationPage(items, nextCursor);
     }
     
     /**
-     * Get unread notifications by user ID
+     * Get unread notifications by user ID, including unread fan-out-on-read broadcasts
+     * Unread notifications are listed whatever their age, like the unread count; the partial
+     * unread index keeps this cheap on every partition.
      */
     public List<NotificationResponse> getUnreadNotificationsByUserId(Long userId) {
-        return notificationRepository.findByUserIdAndIsReadFalse(userId).stream()
-            .map(NotificationResponse::fromNotification)
-            .collect(Collectors.toList());
+        return withBroadcasts(contentCache.toResponses(notificationRepository.findByUserIdAndIsReadFalse(userId)),
+                              broadcastService.getBroadcasts(userId, true));
+    }
+    
+    private LocalDateTime recentSince() {
+        return LocalDateTime.now().minusDays(recentDays);
+    }
+    
+    private static List<NotificationResponse> withBroadcasts(List<NotificationResponse> notifications,
+                                                             List<NotificationResponse> broadcasts) {
+        if (broadcasts.isEmpty()) {
+            return notifications;
+        }
+        List<NotificationResponse> merged = new ArrayList<>(notifications.size() + broadcasts.size());
+        merged.addAll(notifications);
+        merged.addAll(broadcasts);
+        merged.sort(Comparator.comparing(NotificationResponse::getCreatedAt,
+                                         Comparator.nullsFirst(Comparator.naturalOrder())));
+        return merged;
     }
     
     /**
@@ -91,97 +265,220 @@ public class NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
             .orElseThrow(() -> new RuntimeException("Notification not found with id: " + notificationId));
         
-        notification.setIsRead(true);
-        notification = notificationRepository.save(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            notification.setIsRead(true);
+            notification = notificationRepository.save(notification);
+            eventPublisher.publishEvent(new NotificationsReadEvent(notification.getUserId(), 1, false));
+        }
         
-        return NotificationResponse.fromNotification(notification);
+        return contentCache.toResponse(notification);
     }
     
     /**
-     * Mark all notifications as read for a user
+     * Mark a fan-out-on-read broadcast as read for a user
+     */
+    public NotificationResponse markBroadcastAsRead(Long userId, Long broadcastId) {
+        return broadcastService.markAsRead(userId, broadcastId);
+    }
+    
+    /**
+     * Hide a fan-out-on-read broadcast from a user's notifications
+     */
+    public void dismissBroadcast(Long userId, Long broadcastId) {
+        broadcastService.dismiss(userId, broadcastId);
+    }
+    
+    /**
+     * Mark all notifications, including fan-out-on-read broadcasts, as read for a user
+     * Returns the number of notifications that were unread.
      */
     @Transactional
-    public void markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = notificationRepository.findByUserIdAndIsReadFalse(userId);
-        unreadNotifications.forEach(n -> n.setIsRead(true));
-        notificationRepository.saveAll(unreadNotifications);
+    public int markAllAsRead(Long userId) {
+        int updated = notificationRepository.markAllAsReadByUserId(userId) + broadcastService.markAllAsRead(userId);
+        eventPublisher.publishEvent(new NotificationsReadEvent(userId, updated, true));
+        return updated;
     }
     
     /**
      * Get unread count for a user
+     * Served from UnreadCountCache; the database is only queried on a cache miss.
      */
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadCountCache.get(userId);
     }
     
     /**
      * Create notifications for all users
-     * Used for system-wide announcements (e.g., new resources, policy changes)
+     * Used for system-wide announcements (e.g., new resources, policy changes).
+     * Rows are written in JDBC batches, each chunk committed in its own transaction.
+     * With fan-out-on-read enabled, a single broadcast row is written instead and only the
+     * email deliveries are queued per recipient.
+     * Other instances are told once all chunks are written, with one update naming the content.
+     * The shared text is written in the same transaction as the first chunk, so failures before
+     * anything is committed, such as a user service or database outage, leave nothing behind and
+     * are rethrown so the listener retries the event and dead-letters it once retries run out. After
+     * that a retry would notify the users already written twice, so failed chunks are only logged.
      */
-    @Transactional
     public void createNotificationForAllUsers(NotificationType type, String title, String message) {
         logger.info("Creating notification for all users: type={}, title={}", type, title);
         
-        try {
-            // Fetch all users from user service
-            List<Map<String, Object>> users = restTemplate.exchange(
-                userServiceUrl + "/api/users",
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-            ).getBody();
-            
-            if (users == null || users.isEmpty()) {
-                logger.warn("No users found to notify");
-                return;
+        if (fanOutOnRead) {
+            publishBroadcast(type, title, message);
+            return;
+        }
+        
+        List<UserRecipient> users = userDirectoryClient.getRecipients();
+        List<Long> recipients = preferenceService.select(resolveRecipients(users, audienceFor(type)),
+                                                         type, DeliveryChannel.IN_APP);
+        if (recipients.isEmpty()) {
+            logger.warn("No users found to notify");
+            return;
+        }
+        
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime emailAt = digestPolicy.firstAttemptAt(type, createdAt);
+        int total = recipients.size();
+        int written = 0;
+        int failureCount = 0;
+        Long contentId = null;
+        
+        for (int from = 0; from < total; from += broadcastBatchSize) {
+            List<Long> chunk = recipients.subList(from, Math.min(from + broadcastBatchSize, total));
+            Long writtenContentId = contentId;
+            try {
+                contentId = transactionTemplate.execute(status -> {
+                    // The text is written once, with the first chunk; every recipient row only references it
+                    Long chunkContentId = writtenContentId != null
+                        ? writtenContentId
+                        : notificationBatchRepository.insertContent(title, message, createdAt);
+                    List<Long> ids = notificationBatchRepository.insertForUsers(chunk, type, chunkContentId, createdAt);
+                    List<Long> emailIds = new ArrayList<>(ids.size());
+                    List<Long> emailUserIds = new ArrayList<>(ids.size());
+                    for (int i = 0; i < ids.size(); i++) {
+                        if (preferenceService.allows(chunk.get(i), type, DeliveryChannel.EMAIL)) {
+                            emailIds.add(ids.get(i));
+                            emailUserIds.add(chunk.get(i));
+                        }
+                    }
+                    notificationBatchRepository.insertEmailDeliveries(emailIds, emailUserIds, createdAt, emailAt);
+                    eventPublisher.publishEvent(new NotificationsCreatedEvent(
+                        toNotifications(ids, chunk, type, chunkContentId, title, message, createdAt)));
+                    return chunkContentId;
+                });
+                if (writtenContentId == null) {
+                    contentCache.put(contentId, title, message);
+                }
+                written += chunk.size();
+            } catch (Exception e) {
+                if (written == 0) {
+                    throw e;
+                }
+                logger.error("Failed to write broadcast chunk of {} notifications: {}", chunk.size(), e.getMessage());
+                failureCount += chunk.size();
+                continue;
             }
-            
-            int successCount = 0;
+            logger.info("Broadcast {} progress: {}/{} notifications written", type, written, total);
+        }
+        
+        if (written > 0) {
+            eventPublisher.publishEvent(new BroadcastNotificationsCreatedEvent(contentId, type, audienceFor(type), createdAt));
+        }
+        logger.info("Created notifications for {} users ({} success, {} failures)", 
+                   users.size(), written, failureCount);
+    }
+    
+    /**
+     * Get the given users' notifications of a fan-out-on-write broadcast, with the shared text resolved
+     */
+    public List<NotificationResponse> getBroadcastNotifications(Long contentId, LocalDateTime createdAt,
+                                                                Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        List<Notification> notifications = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += broadcastBatchSize) {
+            notifications.addAll(notificationRepository.findByUserIdInAndCreatedAtAndContentId(
+                ids.subList(from, Math.min(from + broadcastBatchSize, ids.size())), createdAt, contentId));
+        }
+        return contentCache.toResponses(notifications);
+    }
+    
+    /**
+     * Publish a fan-out-on-read broadcast, then queue its emails in chunks
+     * The broadcast is visible to its audience as soon as it commits; the email fan-out that
+     * follows does not hold it back. A failure to publish is rethrown so the event is retried;
+     * once the broadcast is committed, email failures are only logged, as a retry would publish
+     * it a second time.
+     */
+    private void publishBroadcast(NotificationType type, String title, String message) {
+        BroadcastAudience audience = audienceFor(type);
+        Broadcast broadcast = broadcastService.publish(type, title, message, audience);
+        
+        try {
+            // Users who turned the type off in-app do not see the broadcast, so they are not emailed either
+            List<Long> recipients = preferenceService.select(
+                preferenceService.select(resolveRecipients(userDirectoryClient.getRecipients(), audience),
+                                         type, DeliveryChannel.IN_APP),
+                type, DeliveryChannel.EMAIL);
+            LocalDateTime createdAt = broadcast.getCreatedAt();
+            LocalDateTime emailAt = digestPolicy.firstAttemptAt(type, createdAt);
+            int queued = 0;
             int failureCount = 0;
-            
-            // Create notification for each user
-            for (Map<String, Object> user : users) {
+            for (int from = 0; from < recipients.size(); from += broadcastBatchSize) {
+                List<Long> chunk = recipients.subList(from, Math.min(from + broadcastBatchSize, recipients.size()));
                 try {
-                    Long userId = Long.valueOf(user.get("id").toString());
-                    
-                    // Skip admin users for resource/policy notifications (they already know)
-                    String role = user.get("role") != null ? user.get("role").toString() : "";
-                    if ("ADMIN".equals(role) && (type == NotificationType.RESOURCE_CREATED || 
-                                                  type == NotificationType.RESOURCE_DELETED ||
-                                                  type == NotificationType.POLICY_CREATED ||
-                                                  type == NotificationType.POLICY_UPDATED ||
-                                                  type == NotificationType.POLICY_DELETED)) {
-                        continue;
-                    }
-                    
-                    Notification notification = new Notification(userId, type, title, message);
-                    notification = notificationRepository.save(notification);
-                    
-                    // Send email asynchronously (don't wait)
-                    try {
-                        emailService.sendNotificationEmail(userId, title, message);
-                        notification.setEmailSent(true);
-                        notificationRepository.save(notification);
-                    } catch (Exception e) {
-                        logger.error("Failed to send email notification to user {}: {}", userId, e.getMessage());
-                    }
-                    
-                    successCount++;
+                    transactionTemplate.executeWithoutResult(status ->
+                        notificationBatchRepository.insertBroadcastEmailDeliveries(broadcast.getId(), chunk, createdAt, emailAt));
+                    queued += chunk.size();
                 } catch (Exception e) {
-                    logger.error("Failed to create notification for user {}: {}", user.get("id"), e.getMessage());
-                    failureCount++;
+                    logger.error("Failed to queue broadcast emails for {} users: {}", chunk.size(), e.getMessage());
+                    failureCount += chunk.size();
                 }
             }
-            
-            logger.info("Created notifications for {} users ({} success, {} failures)", 
-                       users.size(), successCount, failureCount);
+            logger.info("Queued emails for broadcast {} ({} success, {} failures)", broadcast.getId(), queued, failureCount);
         } catch (Exception e) {
-            logger.error("Failed to fetch users or create notifications: {}", e.getMessage());
+            logger.error("Failed to fetch users for broadcast {} emails: {}", broadcast.getId(), e.getMessage());
         }
     }
+    
+    /**
+     * Resource and policy announcements skip admin users (they already know)
+     */
+    private static BroadcastAudience audienceFor(NotificationType type) {
+        boolean skipAdmins = type == NotificationType.RESOURCE_CREATED ||
+                             type == NotificationType.RESOURCE_DELETED ||
+                             type == NotificationType.POLICY_CREATED ||
+                             type == NotificationType.POLICY_UPDATED ||
+                             type == NotificationType.POLICY_DELETED;
+        return skipAdmins ? BroadcastAudience.NON_ADMIN : BroadcastAudience.ALL;
+    }
+    
+    /**
+     * Pick the user IDs that belong to a broadcast audience
+     */
+    private List<Long> resolveRecipients(List<UserRecipient> users, BroadcastAudience audience) {
+        List<Long> recipients = new ArrayList<>(users.size());
+        for (UserRecipient user : users) {
+            if (audience.includes(user.isAdmin())) {
+                recipients.add(user.id());
+            }
+        }
+        return recipients;
+    }
+    
+    /**
+     * Rebuild detached entities for rows written through the batch repository
+     * The text is filled in for event listeners; it is not stored on the rows.
+     */
+    private List<Notification> toNotifications(List<Long> ids, List<Long> userIds, NotificationType type,
+                                               Long contentId, String title, String message,
+                                               LocalDateTime createdAt) {
+        List<Notification> notifications = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Notification notification = new Notification(userIds.get(i), type, title, message);
+            notification.setId(ids.get(i));
+            notification.setContentId(contentId);
+            notification.setCreatedAt(createdAt);
+            notifications.add(notification);
+        }
+        return notifications;
+    }
 }
-
-
-
-
-
@@ -0,0 +1,191 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.dto.NotificationResponse;
+import com.library.notification_service.dto.NotificationUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-user registry of Server-Sent Events connections.
+ * Every connection has a bounded outbound queue drained on the stream executor, so a slow
+ * client never blocks the caller; a client whose queue overflows is disconnected and
+ * resynchronises when it reconnects.
+ */
+@Service
+public class NotificationStreamRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreamRegistry.class);
+    
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final UnreadCountCache unreadCountCache;
+    private final ThreadPoolTaskExecutor streamExecutor;
+    
+    @Value("${notification.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+    
+    @Value("${notification.stream.queue-capacity:100}")
+    private int queueCapacity;
+    
+    @Value("${notification.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+    
+    public NotificationStreamRegistry(UnreadCountCache unreadCountCache,
+                                      @Qualifier("streamExecutor") ThreadPoolTaskExecutor streamExecutor) {
+        this.unreadCountCache = unreadCountCache;
+        this.streamExecutor = streamExecutor;
+    }
+    
+    /**
+     * Open a stream for a user, starting with the current unread count
+     */
+    public SseEmitter subscribe(Long userId) {
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeoutMs), queueCapacity);
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        
+        // Added inside compute so that a concurrent remove cannot drop the set it is being added to
+        AtomicReference<Subscriber> dropped = new AtomicReference<>();
+        subscribers.compute(userId, (id, userSubscribers) -> {
+            if (userSubscribers == null) {
+                userSubscribers = new CopyOnWriteArraySet<>();
+            }
+            userSubscribers.add(subscriber);
+            if (userSubscribers.size() > maxConnectionsPerUser) {
+                // Drop the oldest connection (typically an abandoned tab)
+                dropped.set(userSubscribers.iterator().next());
+            }
+            return userSubscribers;
+        });
+        // Completed outside compute, as completion removes the subscriber from the same entry
+        if (dropped.get() != null) {
+            dropped.get().emitter.complete();
+        }
+        
+        enqueue(subscriber, unreadCountEvent(unreadCountCache.get(userId)));
+        logger.debug("Opened notification stream for user {}", userId);
+        return emitter;
+    }
+    
+    /**
+     * Push a committed change to the user's open streams, if any
+     */
+    public void push(NotificationUpdate update) {
+        push(update.getUserId(), update.getNotification());
+    }
+    
+    /**
+     * Push a notification, or just the new unread count when it is null, to a user's open streams
+     */
+    public void push(Long userId, NotificationResponse notification) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null || userSubscribers.isEmpty()) {
+            return;
+        }
+        
+        // Event builders are single-use, so each connection gets its own
+        long count = unreadCountCache.get(userId);
+        for (Subscriber subscriber : userSubscribers) {
+            if (notification != null) {
+                enqueue(subscriber, SseEmitter.event().name("notification").data(notification));
+            }
+            enqueue(subscriber, unreadCountEvent(count));
+        }
+    }
+    
+    /**
+     * Users with at least one open stream on this instance
+     */
+    public Set<Long> getConnectedUserIds() {
+        return subscribers.keySet();
+    }
+    
+    /**
+     * Keep idle connections alive through proxies and detect dead clients
+     */
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> userSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : userSubscribers) {
+                enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+    
+    private static SseEmitter.SseEventBuilder unreadCountEvent(long count) {
+        return SseEmitter.event().name("unread-count").data(Map.of("count", count));
+    }
+    
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.queue.offer(event)) {
+            logger.warn("Notification stream for user {} is too slow, disconnecting", subscriber.userId);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                streamExecutor.execute(() -> drain(subscriber));
+            } catch (TaskRejectedException e) {
+                subscriber.draining.set(false);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+    
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = subscriber.queue.poll()) != null) {
+                    subscriber.emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter callbacks remove it
+                subscriber.queue.clear();
+                subscriber.draining.set(false);
+                subscriber.emitter.completeWithError(e);
+                return;
+            }
+            subscriber.draining.set(false);
+            // An event may have been queued after the last poll but before the flag was cleared
+        } while (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+    
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+    
+    private static final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        
+        private Subscriber(Long userId, SseEmitter emitter, int queueCapacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
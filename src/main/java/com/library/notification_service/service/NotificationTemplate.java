@@ -0,0 +1,85 @@
+package com.library.notification_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A notification text parsed once into literal segments and parameter slots.
+ * Each slot holds the accessor of its parameter, so rendering appends the segments and the
+ * values read from the parameter record in turn, with no parsing or lookup per call.
+ * Placeholders are written {name}; {{ stands for a literal brace.
+ */
+public final class NotificationTemplate<P> {
+    
+    private final String[] literals;
+    private final Function<P, ?>[] slots;
+    private final int literalLength;
+    
+    private NotificationTemplate(String[] literals, Function<P, ?>[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+    
+    /**
+     * Parse a template whose placeholders must all be among the given parameters
+     * Each parameter name maps to the accessor that reads its value from the parameter record.
+     */
+    public static <P> NotificationTemplate<P> parse(String template, Map<String, Function<P, ?>> parameters) {
+        List<String> literals = new ArrayList<>();
+        List<Function<P, ?>> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            if (i + 1 < template.length() && template.charAt(i + 1) == '{') {
+                literal.append('{');
+                i += 2;
+                continue;
+            }
+            int end = template.indexOf('}', i);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at position " + i + " in: " + template);
+            }
+            String name = template.substring(i + 1, end).trim();
+            Function<P, ?> accessor = parameters.get(name);
+            if (accessor == null) {
+                throw new IllegalArgumentException("Unknown placeholder {" + name + "}, expected one of " + parameters.keySet());
+            }
+            literals.add(literal.toString());
+            slots.add(accessor);
+            literal.setLength(0);
+            i = end + 1;
+        }
+        literals.add(literal.toString());
+        
+        @SuppressWarnings("unchecked")
+        Function<P, ?>[] slotArray = slots.toArray(new Function[0]);
+        return new NotificationTemplate<>(literals.toArray(new String[0]), slotArray);
+    }
+    
+    /**
+     * Render the text for the given parameters; null values render as "null", like String.format did
+     */
+    public String render(P parameters) {
+        StringBuilder text = new StringBuilder(literalLength + slots.length * 16);
+        for (int i = 0; i < slots.length; i++) {
+            text.append(literals[i]);
+            text.append(slots[i].apply(parameters));
+        }
+        text.append(literals[literals.length - 1]);
+        return text.toString();
+    }
+}
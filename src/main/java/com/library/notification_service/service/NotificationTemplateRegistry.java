@@ -0,0 +1,223 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.entity.NotificationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Title and message templates for every notification type.
+ * Templates come from classpath:templates/notifications.properties, overlaid by the
+ * notifications_<locale>.properties bundle for the configured locale and then by an optional
+ * external file, which is reloaded when it changes so wording can be edited without a redeploy.
+ * All templates are parsed and checked when loaded; a broken external file is logged and the
+ * previous templates stay in use.
+ */
+@Component
+public class NotificationTemplateRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationTemplateRegistry.class);
+    
+    private static final String BUNDLE = "classpath:templates/notifications";
+    
+    // Each template family renders from its own parameter record; placeholders name its values
+    private static final TemplateFamily<BookingParameters> BOOKING = new TemplateFamily<BookingParameters>("booking",
+        EnumSet.of(NotificationType.BOOKING_CONFIRMED, NotificationType.BOOKING_REMINDER,
+                   NotificationType.BOOKING_CANCELED, NotificationType.CHECK_IN_REMINDER,
+                   NotificationType.CHECK_IN_CONFIRMED, NotificationType.NO_SHOW_ALERT))
+        .parameter("bookingId", BookingParameters::bookingId)
+        .parameter("resourceId", BookingParameters::resourceId)
+        .parameter("startTime", BookingParameters::startTime)
+        .parameter("endTime", BookingParameters::endTime)
+        .parameter("qrCode", BookingParameters::qrCode)
+        .parameter("checkedInAt", BookingParameters::checkedInAt);
+    private static final TemplateFamily<ResourceParameters> RESOURCE = new TemplateFamily<ResourceParameters>("resource",
+        EnumSet.of(NotificationType.RESOURCE_CREATED, NotificationType.RESOURCE_DELETED))
+        .parameter("resourceId", ResourceParameters::resourceId)
+        .parameter("resourceName", ResourceParameters::resourceName)
+        .parameter("resourceType", ResourceParameters::resourceType)
+        .parameter("floorLine", resource -> resource.floor() != null ? "Floor: " + resource.floor() + "\n" : "");
+    private static final TemplateFamily<PolicyParameters> POLICY = new TemplateFamily<PolicyParameters>("policy",
+        EnumSet.of(NotificationType.POLICY_CREATED, NotificationType.POLICY_UPDATED, NotificationType.POLICY_DELETED))
+        .parameter("policyId", PolicyParameters::policyId)
+        .parameter("policyName", PolicyParameters::policyName);
+    private static final List<TemplateFamily<?>> FAMILIES = List.of(BOOKING, RESOURCE, POLICY);
+    
+    private final ResourceLoader resourceLoader;
+    private final String locale;
+    private final String externalLocation;
+    private volatile Map<NotificationType, CompiledTemplates<?>> templates;
+    private volatile long externalLastModified;
+    
+    public NotificationTemplateRegistry(ResourceLoader resourceLoader,
+                                        @Value("${notification.templates.locale:}") String locale,
+                                        @Value("${notification.templates.location:}") String externalLocation) throws IOException {
+        this.resourceLoader = resourceLoader;
+        this.locale = locale;
+        this.externalLocation = externalLocation;
+        this.templates = load();
+    }
+    
+    /**
+     * Render the title and message for a booking notification
+     */
+    public RenderedNotification renderBooking(NotificationType type, BookingParameters parameters) {
+        return render(BOOKING, type, parameters);
+    }
+    
+    /**
+     * Render the title and message for a resource notification
+     */
+    public RenderedNotification renderResource(NotificationType type, ResourceParameters parameters) {
+        return render(RESOURCE, type, parameters);
+    }
+    
+    /**
+     * Render the title and message for a policy notification
+     */
+    public RenderedNotification renderPolicy(NotificationType type, PolicyParameters parameters) {
+        return render(POLICY, type, parameters);
+    }
+    
+    private <P> RenderedNotification render(TemplateFamily<P> family, NotificationType type, P parameters) {
+        if (!family.types().contains(type)) {
+            throw new IllegalArgumentException(type + " is not a " + family.name() + " notification type");
+        }
+        // load() compiles every type of a family against that family's parameters
+        @SuppressWarnings("unchecked")
+        CompiledTemplates<P> compiled = (CompiledTemplates<P>) templates.get(type);
+        return new RenderedNotification(compiled.title().render(parameters), compiled.message().render(parameters));
+    }
+    
+    /**
+     * Pick up edits to the external template file
+     */
+    @Scheduled(fixedDelayString = "${notification.templates.reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (externalLocation.isBlank()) {
+            return;
+        }
+        try {
+            Resource external = resourceLoader.getResource(externalLocation);
+            if (!external.exists() || external.lastModified() == externalLastModified) {
+                return;
+            }
+            templates = load();
+            logger.info("Reloaded notification templates from {}", externalLocation);
+        } catch (Exception e) {
+            logger.error("Failed to reload notification templates, keeping the current ones: {}", e.getMessage());
+        }
+    }
+    
+    private Map<NotificationType, CompiledTemplates<?>> load() throws IOException {
+        Properties properties = new Properties();
+        loadInto(properties, BUNDLE + ".properties", true);
+        if (!locale.isBlank()) {
+            loadInto(properties, BUNDLE + "_" + locale + ".properties", false);
+        }
+        if (!externalLocation.isBlank()) {
+            Resource external = resourceLoader.getResource(externalLocation);
+            if (external.exists()) {
+                externalLastModified = external.lastModified();
+            }
+            loadInto(properties, externalLocation, false);
+        }
+        
+        Map<NotificationType, CompiledTemplates<?>> compiled = new EnumMap<>(NotificationType.class);
+        for (TemplateFamily<?> family : FAMILIES) {
+            compileInto(compiled, properties, family);
+        }
+        return compiled;
+    }
+    
+    private void loadInto(Properties properties, String location, boolean required) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            if (required) {
+                throw new IOException("Notification templates not found: " + location);
+            }
+            return;
+        }
+        PropertiesLoaderUtils.fillProperties(properties, new EncodedResource(resource, StandardCharsets.UTF_8));
+    }
+    
+    private static <P> void compileInto(Map<NotificationType, CompiledTemplates<?>> compiled, Properties properties,
+                                        TemplateFamily<P> family) {
+        for (NotificationType type : family.types()) {
+            compiled.put(type, new CompiledTemplates<>(
+                parse(properties, type + ".title", family),
+                parse(properties, type + ".message", family)
+            ));
+        }
+    }
+    
+    private static <P> NotificationTemplate<P> parse(Properties properties, String key, TemplateFamily<P> family) {
+        String template = properties.getProperty(key);
+        if (template == null) {
+            throw new IllegalStateException("Missing notification template " + key);
+        }
+        try {
+            return NotificationTemplate.parse(template, family.parameters());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid notification template " + key + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Values for booking templates; checkedInAt is null until the user has checked in
+     */
+    public record BookingParameters(Long bookingId, Long resourceId, LocalDateTime startTime, LocalDateTime endTime,
+                                    String qrCode, LocalDateTime checkedInAt) {}
+    
+    /**
+     * Values for resource templates; the floor line is left out when the floor is unknown
+     */
+    public record ResourceParameters(Long resourceId, String resourceName, String resourceType, Integer floor) {
+        
+        public static ResourceParameters removed(Long resourceId) {
+            return new ResourceParameters(resourceId, null, null, null);
+        }
+    }
+    
+    /**
+     * Values for policy templates
+     */
+    public record PolicyParameters(Long policyId, String policyName) {
+        
+        public static PolicyParameters removed(Long policyId) {
+            return new PolicyParameters(policyId, null);
+        }
+    }
+    
+    private record TemplateFamily<P>(String name, Set<NotificationType> types, Map<String, Function<P, ?>> parameters) {
+        
+        TemplateFamily(String name, Set<NotificationType> types) {
+            this(name, types, new LinkedHashMap<>());
+        }
+        
+        TemplateFamily<P> parameter(String placeholder, Function<P, ?> accessor) {
+            parameters.put(placeholder, accessor);
+            return this;
+        }
+    }
+    
+    private record CompiledTemplates<P>(NotificationTemplate<P> title, NotificationTemplate<P> message) {}
+}
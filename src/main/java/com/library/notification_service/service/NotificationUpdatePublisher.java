@@ -0,0 +1,93 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.config.RabbitMQConfig;
+import com.library.notification_service.dto.NotificationResponse;
+import com.library.notification_service.dto.NotificationUpdate;
+import com.library.notification_service.dto.NotificationUpdateBatch;
+import com.library.notification_service.entity.Notification;
+import com.library.notification_service.event.BroadcastCreatedEvent;
+import com.library.notification_service.event.BroadcastNotificationsCreatedEvent;
+import com.library.notification_service.event.NotificationPreferencesChangedEvent;
+import com.library.notification_service.event.NotificationsCreatedEvent;
+import com.library.notification_service.event.NotificationsReadEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes committed notification changes to every service instance, so that
+ * unread count caches and live streams stay current whichever replica made the change.
+ * Rows of a fan-out-on-write broadcast are not published one by one; a single update naming
+ * the shared content follows once all of them are written.
+ */
+@Service
+public class NotificationUpdatePublisher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationUpdatePublisher.class);
+    
+    private final RabbitTemplate rabbitTemplate;
+    
+    @Value("${notification.updates.max-batch-size:500}")
+    private int maxBatchSize;
+    
+    public NotificationUpdatePublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationsCreated(NotificationsCreatedEvent event) {
+        List<NotificationUpdate> updates = new ArrayList<>(Math.min(maxBatchSize, event.getNotifications().size()));
+        for (Notification notification : event.getNotifications()) {
+            if (notification.getContentId() != null) {
+                continue;
+            }
+            updates.add(NotificationUpdate.created(NotificationResponse.fromNotification(notification)));
+            if (updates.size() == maxBatchSize) {
+                publish(updates);
+                updates = new ArrayList<>(maxBatchSize);
+            }
+        }
+        if (!updates.isEmpty()) {
+            publish(updates);
+        }
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationsRead(NotificationsReadEvent event) {
+        publish(List.of(NotificationUpdate.read(event.getUserId(), event.getReadCount(), event.isAllRead(),
+                                                event.getChangedAt())));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBroadcastCreated(BroadcastCreatedEvent event) {
+        publish(List.of(NotificationUpdate.broadcast(event.getNotification(), event.getAudience())));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBroadcastNotificationsCreated(BroadcastNotificationsCreatedEvent event) {
+        publish(List.of(NotificationUpdate.sharedBroadcast(event.getContentId(), event.getType(),
+                                                           event.getAudience(), event.getCreatedAt())));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPreferencesChanged(NotificationPreferencesChangedEvent event) {
+        publish(List.of(NotificationUpdate.preferencesChanged(event.getUserId())));
+    }
+    
+    private void publish(List<NotificationUpdate> updates) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.NOTIFICATION_UPDATES_EXCHANGE, "",
+                                          new NotificationUpdateBatch(updates));
+        } catch (Exception e) {
+            // Caches converge through their TTL and stream clients resync on reconnect
+            logger.error("Failed to publish {} notification updates: {}", updates.size(), e.getMessage());
+        }
+    }
+}
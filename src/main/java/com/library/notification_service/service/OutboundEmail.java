@@ -0,0 +1,7 @@
+package com.library.notification_service.service;
+
+/**
+ * A single email to be sent by EmailService
+ */
+public record OutboundEmail(Long userId, String subject, String message) {
+}
@@ -0,0 +1,108 @@
+package com.library.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.notification_service.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deduplication of consumed events.
+ * The unique key in processed_events is the source of truth: a key is claimed in the same
+ * transaction that writes the notifications, so a rollback releases it and concurrent consumers
+ * of the same event block on each other until one commits. A batch of keys is claimed with a
+ * single statement. Recently committed keys are also kept in memory, so redeliveries seen by
+ * this instance are dropped without a database round trip.
+ */
+@Component
+public class ProcessedEventStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProcessedEventStore.class);
+    
+    private final ProcessedEventRepository processedEventRepository;
+    private final Cache<String, Boolean> recentKeys;
+    private final ThreadPoolTaskExecutor maintenanceExecutor;
+    
+    @Value("${notification.dedup.retention-days:14}")
+    private long retentionDays;
+    
+    @Value("${notification.dedup.purge-batch-size:5000}")
+    private int purgeBatchSize;
+    
+    public ProcessedEventStore(ProcessedEventRepository processedEventRepository,
+                               MeterRegistry meterRegistry,
+                               @Qualifier("maintenanceExecutor") ThreadPoolTaskExecutor maintenanceExecutor,
+                               @Value("${notification.dedup.cache-size:100000}") long cacheSize) {
+        this.processedEventRepository = processedEventRepository;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.recentKeys = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentKeys, "notification.processed-events");
+    }
+    
+    /**
+     * Claim the given event keys and return the ones not processed before
+     * Must be called inside the transaction that acts on the events.
+     */
+    public Set<String> claim(Collection<String> keys) {
+        List<String> unknown = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (recentKeys.getIfPresent(key) == null) {
+                unknown.add(key);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return new HashSet<>();
+        }
+        
+        Set<String> claimed = processedEventRepository.claim(unknown, LocalDateTime.now());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (String key : unknown) {
+                    recentKeys.put(key, Boolean.TRUE);
+                }
+            }
+        });
+        return claimed;
+    }
+    
+    /**
+     * Forget keys older than the retention period, in chunks
+     * Retention must outlast the longest redelivery, including a replay from a dead-letter queue.
+     * Runs on the maintenance executor so the scheduler thread is not held up.
+     */
+    @Scheduled(cron = "${notification.dedup.purge-cron:0 30 3 * * *}")
+    public void schedulePurge() {
+        maintenanceExecutor.execute(this::purge);
+    }
+    
+    private void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = processedEventRepository.deleteProcessedBefore(cutoff, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        logger.info("Purged {} processed event keys older than {}", total, cutoff);
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Email addresses of notification recipients.
+ * Addresses missing from the cache are fetched from the user service in bulk, so sending a
+ * batch of emails costs at most a few lookups instead of one per recipient. Entries expire
+ * after a TTL and are dropped early when a user event reports a change.
+ * Hit and miss counts are published as cache metrics under "notification.recipient-address".
+ */
+@Component
+public class RecipientAddressResolver {
+    
+    private final UserDirectoryClient userDirectoryClient;
+    private final Cache<Long, String> addresses;
+    
+    public RecipientAddressResolver(UserDirectoryClient userDirectoryClient,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${notification.users.address-cache.max-size:100000}") long maxSize,
+                                    @Value("${notification.users.address-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.userDirectoryClient = userDirectoryClient;
+        this.addresses = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, addresses, "notification.recipient-address");
+    }
+    
+    /**
+     * Get the email addresses of the given users
+     * Users that are unknown or have no address are missing from the result.
+     */
+    public Map<Long, String> resolve(Collection<Long> userIds) {
+        return addresses.getAll(userIds, this::load);
+    }
+    
+    /**
+     * Forget the address of a user that changed
+     */
+    public void invalidate(Long userId) {
+        addresses.invalidate(userId);
+    }
+    
+    /**
+     * Forget all addresses, for user events that do not say which user changed
+     */
+    public void invalidateAll() {
+        addresses.invalidateAll();
+    }
+    
+    private Map<Long, String> load(Set<? extends Long> userIds) {
+        Map<Long, String> loaded = new HashMap<>();
+        for (UserRecipient user : userDirectoryClient.findByIds(userIds)) {
+            if (user.email() != null && !user.email().isBlank()) {
+                loaded.put(user.id(), user.email());
+            }
+        }
+        return loaded;
+    }
+}
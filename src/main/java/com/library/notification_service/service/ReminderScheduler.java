@@ -0,0 +1,289 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.dto.BookingEvent;
+import com.library.notification_service.entity.NotificationType;
+import com.library.notification_service.repository.BookingReminderRepository;
+import com.library.notification_service.repository.BookingReminderRepository.Reminder;
+import com.library.notification_service.repository.BookingReminderRepository.ReminderTime;
+import com.library.notification_service.service.NotificationTemplateRegistry.BookingParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Booking and check-in reminders, sent a configured number of minutes before a booking starts.
+ * Reminders are persisted in booking_reminders when a booking is created and deleted when it is
+ * canceled, checked in or released. Only reminders due within the next window are held in memory,
+ * on a hierarchical timing wheel; the window is reloaded periodically, which also restores it after
+ * a restart and picks up reminders scheduled by other replicas. When the wheel reports a reminder
+ * due, due rows are claimed from the table in batches and turned into notifications in the same
+ * transaction, so each reminder is sent once across replicas. A canceled reminder is not removed
+ * from the wheel; its claim simply finds nothing.
+ * Canceled bookings are remembered for a while, so that a booking.created event retried or
+ * redelivered after the cancellation does not bring the reminders back.
+ */
+@Service
+public class ReminderScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReminderScheduler.class);
+    
+    private static final int WHEEL_SIZE = 60;
+    
+    private final BookingReminderRepository reminderRepository;
+    private final NotificationService notificationService;
+    private final NotificationTemplateRegistry templateRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor maintenanceExecutor;
+    private final long tickMs;
+    private final Map<NotificationType, Long> leadMinutes = new HashMap<>();
+    
+    // Wheel and scheduled keys are guarded by the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final HierarchicalTimingWheel<ReminderKey> wheel;
+    private final Map<ReminderKey, Long> scheduled = new HashMap<>();
+    private final AtomicBoolean due = new AtomicBoolean(true);
+    
+    @Value("${notification.reminders.window-minutes:15}")
+    private long windowMinutes;
+    
+    @Value("${notification.reminders.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${notification.reminders.cancellation-retention-days:14}")
+    private long cancellationRetentionDays;
+    
+    @Value("${notification.reminders.purge-batch-size:5000}")
+    private int purgeBatchSize;
+    
+    public ReminderScheduler(BookingReminderRepository reminderRepository,
+                             NotificationService notificationService,
+                             NotificationTemplateRegistry templateRegistry,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier("maintenanceExecutor") ThreadPoolTaskExecutor maintenanceExecutor,
+                             @Value("${notification.reminders.booking-lead-minutes:60}") long bookingLeadMinutes,
+                             @Value("${notification.reminders.check-in-lead-minutes:10}") long checkInLeadMinutes,
+                             @Value("${notification.reminders.tick-ms:1000}") long tickMs) {
+        this.reminderRepository = reminderRepository;
+        this.notificationService = notificationService;
+        this.templateRegistry = templateRegistry;
+        this.transactionTemplate = transactionTemplate;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.tickMs = tickMs;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+        // A lead time of zero turns that reminder off
+        if (bookingLeadMinutes > 0) {
+            leadMinutes.put(NotificationType.BOOKING_REMINDER, bookingLeadMinutes);
+        }
+        if (checkInLeadMinutes > 0) {
+            leadMinutes.put(NotificationType.CHECK_IN_REMINDER, checkInLeadMinutes);
+        }
+    }
+    
+    /**
+     * Persist the reminders of newly created bookings
+     * Reminders whose time has already passed, and those of bookings already canceled, are not scheduled.
+     */
+    public void schedule(List<BookingEvent> bookings) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Reminder> reminders = new ArrayList<>(bookings.size() * leadMinutes.size());
+        for (BookingEvent booking : bookings) {
+            if (booking.getId() == null || booking.getStartTime() == null) {
+                continue;
+            }
+            leadMinutes.forEach((type, minutes) -> {
+                LocalDateTime fireAt = booking.getStartTime().minusMinutes(minutes);
+                if (fireAt.isAfter(now)) {
+                    reminders.add(new Reminder(booking.getId(), type, booking.getUserId(), booking.getResourceId(),
+                                               booking.getStartTime(), booking.getEndTime(), booking.getQrCode(),
+                                               fireAt));
+                }
+            });
+        }
+        if (reminders.isEmpty()) {
+            return;
+        }
+        
+        reminderRepository.upsert(reminders);
+        LocalDateTime horizon = now.plusMinutes(windowMinutes);
+        for (Reminder reminder : reminders) {
+            if (reminder.fireAt().isBefore(horizon)) {
+                track(new ReminderKey(reminder.bookingId(), reminder.type()), reminder.fireAt());
+            }
+        }
+    }
+    
+    /**
+     * Drop the pending reminders of bookings that were canceled, checked in or released, and keep
+     * them from being scheduled again
+     */
+    public void cancel(List<BookingEvent> bookings) {
+        List<Long> bookingIds = bookings.stream()
+            .map(BookingEvent::getId)
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+        int deleted = reminderRepository.cancelBookings(bookingIds, LocalDateTime.now());
+        if (deleted > 0) {
+            logger.debug("Canceled {} reminders of {} bookings", deleted, bookingIds.size());
+        }
+    }
+    
+    /**
+     * Forget cancellations older than the retention period, in chunks, on the maintenance executor
+     * Retention must outlast the longest redelivery of a booking.created event, like the dedup keys.
+     */
+    @Scheduled(cron = "${notification.reminders.cancellation-purge-cron:0 45 3 * * *}")
+    public void schedulePurge() {
+        maintenanceExecutor.execute(this::purgeCancellations);
+    }
+    
+    private void purgeCancellations() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(cancellationRetentionDays);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = reminderRepository.deleteCancellationsBefore(cutoff, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        logger.info("Purged {} booking reminder cancellations older than {}", total, cutoff);
+    }
+    
+    /**
+     * Load the reminders of the next window onto the wheel; runs at startup and then periodically
+     */
+    @Scheduled(fixedDelayString = "${notification.reminders.reload-interval-ms:60000}")
+    public void reloadWindow() {
+        try {
+            List<ReminderTime> upcoming = reminderRepository.findDueBefore(LocalDateTime.now().plusMinutes(windowMinutes));
+            for (ReminderTime reminder : upcoming) {
+                track(new ReminderKey(reminder.bookingId(), reminder.type()), reminder.fireAt());
+            }
+            logger.debug("Reminder window holds {} reminders", scheduledCount());
+        } catch (Exception e) {
+            logger.error("Failed to load upcoming reminders: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Advance the wheel and send whatever came due
+     */
+    @Scheduled(fixedDelayString = "${notification.reminders.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            wheel.advance(now, (key, dueAtMs) -> {
+                // Keys rescheduled since they were added come up again at their new time
+                if (scheduled.remove(key, dueAtMs)) {
+                    due.set(true);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        
+        if (due.getAndSet(false)) {
+            sendDue(now);
+        }
+    }
+    
+    private void sendDue(long nowMs) {
+        // The wheel fires up to one tick early, so claim everything due within the current tick
+        LocalDateTime before = toLocalDateTime(nowMs + tickMs);
+        int claimed;
+        do {
+            try {
+                Integer count = transactionTemplate.execute(status -> {
+                    List<Reminder> reminders = reminderRepository.claimDue(before, batchSize);
+                    List<NotificationDraft> drafts = toDrafts(reminders);
+                    if (!drafts.isEmpty()) {
+                        notificationService.createNotifications(drafts);
+                    }
+                    return reminders.size();
+                });
+                claimed = count != null ? count : 0;
+            } catch (Exception e) {
+                logger.error("Failed to send due reminders, retrying on the next tick: {}", e.getMessage());
+                due.set(true);
+                return;
+            }
+            if (claimed > 0) {
+                logger.info("Sent {} booking reminders", claimed);
+            }
+        } while (claimed == batchSize);
+    }
+    
+    private List<NotificationDraft> toDrafts(List<Reminder> reminders) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationDraft> drafts = new ArrayList<>(reminders.size());
+        for (Reminder reminder : reminders) {
+            // Reminders overdue from downtime are dropped once the booking has started
+            if (!reminder.startTime().isAfter(now)) {
+                logger.debug("Dropping reminder for booking {} that already started", reminder.bookingId());
+                continue;
+            }
+            // Reminders go out before check-in, so there is no check-in time yet
+            RenderedNotification rendered = templateRegistry.renderBooking(reminder.type(), new BookingParameters(
+                reminder.bookingId(),
+                reminder.resourceId(),
+                reminder.startTime(),
+                reminder.endTime(),
+                reminder.qrCode(),
+                null
+            ));
+            drafts.add(new NotificationDraft(reminder.userId(), reminder.type(), rendered.title(), rendered.message()));
+        }
+        return drafts;
+    }
+    
+    private void track(ReminderKey key, LocalDateTime fireAt) {
+        long dueAtMs = fireAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        lock.lock();
+        try {
+            Long current = scheduled.get(key);
+            if (current != null && current == dueAtMs) {
+                return;
+            }
+            if (wheel.add(key, dueAtMs)) {
+                scheduled.put(key, dueAtMs);
+            } else {
+                scheduled.remove(key);
+                due.set(true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private int scheduledCount() {
+        lock.lock();
+        try {
+            return scheduled.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+    
+    private record ReminderKey(Long bookingId, NotificationType type) {}
+}
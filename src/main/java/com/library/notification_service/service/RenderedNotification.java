@@ -0,0 +1,7 @@
+package com.library.notification_service.service;
+
+/**
+ * Title and message produced from a notification template
+ */
+public record RenderedNotification(String title, String message) {
+}
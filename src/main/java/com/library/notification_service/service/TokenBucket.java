@@ -0,0 +1,67 @@
+package com.library.notification_service.service;
+
+/**
+ * Token bucket that refills continuously at a fixed rate up to its capacity.
+ * Callers check how long until a token is available and take it once it is. Not thread-safe.
+ */
+public final class TokenBucket {
+    
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    
+    private final double permitsPerSecond;
+    private final double capacity;
+    private double tokens;
+    private long refilledAtNanos;
+    
+    public TokenBucket(double permitsPerSecond, double capacity, long nowNanos) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive and capacity at least 1");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.refilledAtNanos = nowNanos;
+    }
+    
+    /**
+     * Nanoseconds until a token is available; 0 when one is available now
+     */
+    public long nanosUntilAvailable(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / permitsPerSecond * NANOS_PER_SECOND);
+    }
+    
+    /**
+     * Take a token; callers check availability first
+     */
+    public void take() {
+        tokens -= 1;
+    }
+    
+    /**
+     * Whole tokens available at nowNanos plus those refilled within the following window
+     */
+    public long permitsWithin(long nowNanos, long windowNanos) {
+        refill(nowNanos);
+        return (long) (tokens + permitsPerSecond * windowNanos / NANOS_PER_SECOND);
+    }
+    
+    /**
+     * Whole tokens currently available
+     */
+    public long available(long nowNanos) {
+        refill(nowNanos);
+        return (long) tokens;
+    }
+    
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - refilledAtNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * permitsPerSecond / NANOS_PER_SECOND);
+            refilledAtNanos = nowNanos;
+        }
+    }
+}
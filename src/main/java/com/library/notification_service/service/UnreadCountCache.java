@@ -0,0 +1,109 @@
+package com.library.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.library.notification_service.dto.NotificationUpdate;
+import com.library.notification_service.entity.DeliveryChannel;
+import com.library.notification_service.repository.NotificationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user unread notification counts, including unread fan-out-on-read broadcasts.
+ * Loaded from the database on a miss and kept current from the notification updates
+ * every instance receives, so polling the unread count normally never reaches the database.
+ * An update is only applied to a count loaded before the change was made, allowing for clock
+ * skew between instances. A count loaded later may already include the change, so it is
+ * dropped and loaded again rather than adjusted twice.
+ * Hit and miss counts are published as cache metrics under "notification.unread-count".
+ */
+@Component
+public class UnreadCountCache {
+    
+    private final LoadingCache<Long, Count> counts;
+    private final BroadcastAudienceResolver audienceResolver;
+    private final NotificationPreferenceService preferenceService;
+    private final Duration clockSkew;
+    
+    public UnreadCountCache(NotificationRepository notificationRepository,
+                            BroadcastService broadcastService,
+                            BroadcastAudienceResolver audienceResolver,
+                            NotificationPreferenceService preferenceService,
+                            MeterRegistry meterRegistry,
+                            @Value("${notification.unread-cache.max-size:100000}") long maxSize,
+                            @Value("${notification.unread-cache.ttl-minutes:30}") long ttlMinutes,
+                            @Value("${notification.unread-cache.clock-skew-ms:2000}") long clockSkewMs) {
+        this.audienceResolver = audienceResolver;
+        this.preferenceService = preferenceService;
+        this.clockSkew = Duration.ofMillis(clockSkewMs);
+        this.counts = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .recordStats()
+            .build(userId -> new Count(notificationRepository.countByUserIdAndIsReadFalse(userId)
+                                       + broadcastService.countUnread(userId),
+                                       LocalDateTime.now()));
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "notification.unread-count");
+    }
+    
+    /**
+     * Get the unread count for a user, loading it on a miss
+     */
+    public long get(Long userId) {
+        return counts.get(userId).value();
+    }
+    
+    /**
+     * Apply a committed change fanned out from any instance
+     * Users without a cached count are left alone and loaded on their next read.
+     */
+    public void apply(NotificationUpdate update) {
+        if (update.getAudience() != null) {
+            // A broadcast adds one unread notification for every cached user in its audience who sees its type
+            for (Long userId : preferenceService.select(audienceResolver.select(update.getAudience(), counts.asMap().keySet()),
+                                                        update.getNotification().getType(), DeliveryChannel.IN_APP)) {
+                adjust(userId, 1, update.getChangedAt());
+            }
+        } else if (update.getNotification() != null) {
+            adjust(update.getUserId(), 1, update.getChangedAt());
+        } else if (update.isAllRead()) {
+            // Updates of changes made before this point find a count loaded after them and reload it
+            counts.put(update.getUserId(), new Count(0, LocalDateTime.now()));
+        } else {
+            adjust(update.getUserId(), -update.getReadCount(), update.getChangedAt());
+        }
+    }
+    
+    /**
+     * Drop a user's count so that it is loaded again on the next read
+     */
+    public void invalidate(Long userId) {
+        counts.invalidate(userId);
+    }
+    
+    private void adjust(Long userId, long delta, LocalDateTime changedAt) {
+        // Returning null drops the count, so the next read loads it with the change included
+        counts.asMap().computeIfPresent(userId, (id, count) -> loadedBefore(count, changedAt)
+            ? new Count(Math.max(0L, count.value() + delta), count.loadedAt())
+            : null);
+    }
+    
+    /**
+     * Whether a count was loaded before a change made at changedAt, so that it cannot include it
+     * An update without a change time, from an instance that does not send one, never qualifies.
+     */
+    private boolean loadedBefore(Count count, LocalDateTime changedAt) {
+        return changedAt != null && count.loadedAt().isBefore(changedAt.minus(clockSkew));
+    }
+    
+    /**
+     * A cached count and when it was loaded; adjusting it keeps the load time, as the database
+     * state it reflects is still that of the load
+     */
+    private record Count(long value, LocalDateTime loadedAt) {}
+}
@@ -0,0 +1,281 @@
+package com.library.notification_service.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only view of the user service directory.
+ * Users are fetched page by page and parsed as a stream, keeping only id, role and email, so
+ * a large directory is never held as generic maps. The resulting recipient list is cached
+ * until its TTL runs out or a user event invalidates it.
+ * Both a plain JSON array and a Spring Data page ({"content": [...], "last": ...}) are accepted;
+ * a user service that ignores the paging parameters answers in one response.
+ * Lookups by id are answered from the same cached directory, loading it first when needed:
+ * the user service has no lookup by ids, so one full load serves every lookup until the next
+ * invalidation instead of each lookup reading the whole directory again.
+ * An invalidation or the TTL only marks the directory stale. getRecipients and findByIds wait for
+ * the reload, while lookupByIds answers from the stale copy at once and leaves the reload to a
+ * background thread, so request threads only ever wait for the very first load.
+ */
+@Component
+public class UserDirectoryClient {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectoryClient.class);
+    
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor directoryExecutor;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+    
+    @Value("${user-service-url}")
+    private String userServiceUrl;
+    
+    @Value("${notification.users.page-size:1000}")
+    private int pageSize;
+    
+    @Value("${notification.users.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+    
+    public UserDirectoryClient(RestTemplate restTemplate, ObjectMapper objectMapper,
+                               @Qualifier("directoryExecutor") ThreadPoolTaskExecutor directoryExecutor) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.directoryExecutor = directoryExecutor;
+    }
+    
+    /**
+     * Get every user, from the cache when it is fresh
+     */
+    public List<UserRecipient> getRecipients() {
+        return load().users();
+    }
+    
+    /**
+     * Get the users with the given ids; unknown ids are left out
+     */
+    public List<UserRecipient> findByIds(Collection<? extends Long> ids) {
+        return select(load(), ids);
+    }
+    
+    /**
+     * Get the users with the given ids without waiting for a reload; unknown ids are left out
+     * A stale directory is used as it is and reloaded in the background. The result tells
+     * which, so that callers do not keep an answer that may predate the latest user change.
+     */
+    public Lookup lookupByIds(Collection<? extends Long> ids) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = load();
+        } else if (!isCurrent(current)) {
+            refreshInBackground();
+        }
+        return new Lookup(select(current, ids), isCurrent(current));
+    }
+    
+    /**
+     * Mark the cached directory stale so that it is reloaded
+     */
+    public void invalidate() {
+        invalidations.incrementAndGet();
+    }
+    
+    private static List<UserRecipient> select(Snapshot snapshot, Collection<? extends Long> ids) {
+        List<UserRecipient> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            UserRecipient user = snapshot.byId().get(id);
+            if (user != null) {
+                found.add(user);
+            }
+        }
+        return found;
+    }
+    
+    private boolean isCurrent(Snapshot snapshot) {
+        return snapshot.generation() == invalidations.get() && !snapshot.isExpired(cacheTtlSeconds);
+    }
+    
+    /**
+     * Reload on the directory thread unless a reload is already queued or running
+     */
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            directoryExecutor.execute(() -> {
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    logger.warn("Background reload of the user directory failed: {}", e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            refreshing.set(false);
+            logger.warn("Background reload of the user directory was rejected: {}", e.getMessage());
+        }
+    }
+    
+    private Snapshot load() {
+        Snapshot current = snapshot;
+        if (current != null && isCurrent(current)) {
+            return current;
+        }
+        long seen = invalidations.get();
+        
+        // One caller reloads; concurrent callers wait for its result.
+        // A lock rather than synchronized, so a waiting virtual thread does not pin its carrier.
+        loadLock.lock();
+        try {
+            // A load started after every change this caller knows of is good enough for it,
+            // even if a later change already made it stale
+            current = snapshot;
+            if (current != null && current.generation() >= seen && !current.isExpired(cacheTtlSeconds)) {
+                return current;
+            }
+            long generation = invalidations.get();
+            long started = System.currentTimeMillis();
+            // A user that changed while loading leaves the result stale, but it is still newer than the cached one
+            Snapshot loaded = new Snapshot(fetch(), generation, System.currentTimeMillis());
+            snapshot = loaded;
+            logger.info("Loaded {} users from user service in {} ms", loaded.users().size(),
+                        System.currentTimeMillis() - started);
+            return loaded;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    /**
+     * Read all pages of the user listing
+     */
+    private List<UserRecipient> fetch() {
+        List<UserRecipient> users = new ArrayList<>();
+        List<UserRecipient> pageUsers = new ArrayList<>();
+        int page = 0;
+        boolean last;
+        do {
+            String url = userServiceUrl + "/api/users?page=" + page + "&size=" + pageSize;
+            pageUsers.clear();
+            Boolean lastPage = restTemplate.execute(url, HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                response -> readPage(response.getBody(), pageUsers));
+            users.addAll(pageUsers);
+            last = lastPage == null || lastPage;
+            page++;
+        } while (!last);
+        return List.copyOf(users);
+    }
+    
+    /**
+     * Append the users of one response and tell whether it was the last page
+     */
+    private Boolean readPage(InputStream body, List<UserRecipient> users) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                readUsers(parser, users);
+                return true;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected user service response: " + token);
+            }
+            
+            int before = users.size();
+            Boolean last = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("content".equals(field) && value == JsonToken.START_ARRAY) {
+                    readUsers(parser, users);
+                } else if ("last".equals(field) && value.isBoolean()) {
+                    last = parser.getBooleanValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            // Without a "last" flag, an empty page ends the listing
+            return last != null ? last : users.size() == before;
+        }
+    }
+    
+    private void readUsers(JsonParser parser, List<UserRecipient> users) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Long id = null;
+            String role = null;
+            String email = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL || value.isStructStart()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                switch (field) {
+                    case "id" -> id = value.isNumeric() ? parser.getLongValue() : parseId(parser.getText());
+                    case "role" -> role = parser.getText();
+                    case "email" -> email = parser.getText();
+                    default -> parser.skipChildren();
+                }
+            }
+            if (id == null) {
+                logger.error("Skipping user without a valid id");
+                continue;
+            }
+            users.add(new UserRecipient(id, role, email));
+        }
+    }
+    
+    private static Long parseId(String text) {
+        try {
+            return Long.valueOf(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Users found by lookupByIds, and whether they come from a directory that is up to date
+     */
+    public record Lookup(List<UserRecipient> users, boolean current) {
+    }
+    
+    private record Snapshot(List<UserRecipient> users, Map<Long, UserRecipient> byId, long generation, long loadedAt) {
+        
+        Snapshot(List<UserRecipient> users, long generation, long loadedAt) {
+            this(users, users.stream().collect(Collectors.toMap(UserRecipient::id, Function.identity(), (a, b) -> a)),
+                 generation, loadedAt);
+        }
+        
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - loadedAt > ttlSeconds * 1000;
+        }
+    }
+}
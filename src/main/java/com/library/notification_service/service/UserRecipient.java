@@ -0,0 +1,11 @@
+package com.library.notification_service.service;
+
+/**
+ * The fields of a user that notification delivery needs
+ */
+public record UserRecipient(Long id, String role, String email) {
+    
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+}
@@ -0,0 +1,4 @@
+-- The email dispatcher gathers each user's other pending deliveries into one digest
+CREATE INDEX idx_notification_deliveries_user_pending
+    ON notification_deliveries (user_id, next_attempt_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,12 @@
+-- Per-user opt-outs by notification type and channel; types and channels without a row are enabled
+CREATE TABLE notification_preferences (
+    user_id     BIGINT        NOT NULL,
+    type        VARCHAR(50)   NOT NULL,
+    channel     VARCHAR(32)   NOT NULL,
+    enabled     BOOLEAN       NOT NULL,
+    updated_at  TIMESTAMP(6)  NOT NULL,
+    PRIMARY KEY (user_id, type, channel)
+);
+
+-- Instances pick up changes made elsewhere by polling for recently updated rows
+CREATE INDEX idx_notification_preferences_updated_at ON notification_preferences (updated_at);
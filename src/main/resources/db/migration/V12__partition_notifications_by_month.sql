@@ -0,0 +1,62 @@
+-- Monthly range partitions on created_at. Existing rows are not copied: the old table is attached
+-- as the partition for everything before next month, which only costs a scan to check its range
+-- and to build the (id, created_at) primary key that every partition needs. Later months get their
+-- own partitions, created ahead of time by NotificationRetentionService. A partition's name gives
+-- its range: notifications_pYYYYMM holds that month, notifications_before_YYYYMM all earlier rows.
+ALTER TABLE notifications RENAME TO notifications_legacy;
+ALTER TABLE notifications_legacy RENAME CONSTRAINT notifications_pkey TO notifications_legacy_pkey;
+ALTER INDEX idx_notifications_user_created_id RENAME TO idx_notifications_legacy_user_created_id;
+ALTER INDEX idx_notifications_user_unread RENAME TO idx_notifications_legacy_user_unread;
+ALTER INDEX idx_notifications_type_created RENAME TO idx_notifications_legacy_type_created;
+
+CREATE TABLE notifications (
+    id          BIGINT        NOT NULL,
+    user_id     BIGINT        NOT NULL,
+    type        VARCHAR(255)  NOT NULL,
+    title       VARCHAR(255),
+    message     TEXT,
+    is_read     BOOLEAN       NOT NULL,
+    email_sent  BOOLEAN       NOT NULL,
+    created_at  TIMESTAMP(6)  NOT NULL,
+    content_id  BIGINT,
+    CONSTRAINT notifications_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT ck_notifications_text_or_content
+        CHECK (content_id IS NOT NULL OR (title IS NOT NULL AND message IS NOT NULL))
+) PARTITION BY RANGE (created_at);
+
+-- Same indexes as before; the legacy table's copies are attached instead of rebuilt
+CREATE INDEX idx_notifications_user_created_id ON notifications (user_id, created_at DESC, id DESC);
+CREATE INDEX idx_notifications_user_unread ON notifications (user_id) WHERE is_read = false;
+CREATE INDEX idx_notifications_type_created ON notifications (type, created_at);
+
+DO $$
+DECLARE
+    boundary     TIMESTAMP := date_trunc('month', LOCALTIMESTAMP) + INTERVAL '1 month';
+    legacy       TEXT := 'notifications_before_' || to_char(boundary, 'YYYYMM');
+    month_start  TIMESTAMP;
+BEGIN
+    EXECUTE format('ALTER TABLE notifications_legacy RENAME TO %I', legacy);
+    EXECUTE format('ALTER TABLE notifications ATTACH PARTITION %I FOR VALUES FROM (MINVALUE) TO (%L)',
+                   legacy, boundary);
+    FOR i IN 0..2 LOOP
+        month_start := boundary + make_interval(months => i);
+        EXECUTE format('CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                       'notifications_p' || to_char(month_start, 'YYYYMM'),
+                       month_start, month_start + INTERVAL '1 month');
+    END LOOP;
+END $$;
+
+-- Read notifications past retention are moved here by NotificationRetentionService
+CREATE TABLE notifications_archive (
+    id           BIGINT        PRIMARY KEY,
+    user_id      BIGINT        NOT NULL,
+    type         VARCHAR(255)  NOT NULL,
+    title        VARCHAR(255),
+    message      TEXT,
+    email_sent   BOOLEAN       NOT NULL,
+    created_at   TIMESTAMP(6)  NOT NULL,
+    content_id   BIGINT,
+    archived_at  TIMESTAMP(6)  NOT NULL
+);
+
+CREATE INDEX idx_notifications_archive_user_created ON notifications_archive (user_id, created_at);
@@ -0,0 +1,10 @@
+-- Bookings whose reminders were canceled (canceled, checked in or released). A booking.created
+-- event retried or redelivered after its cancellation must not schedule the reminders again,
+-- so scheduling skips these bookings and claims drop their reminders.
+CREATE TABLE booking_reminder_cancellations (
+    booking_id   BIGINT        PRIMARY KEY,
+    canceled_at  TIMESTAMP(6)  NOT NULL
+);
+
+-- Retention purge deletes the oldest cancellations first
+CREATE INDEX idx_booking_reminder_cancellations_canceled_at ON booking_reminder_cancellations (canceled_at);
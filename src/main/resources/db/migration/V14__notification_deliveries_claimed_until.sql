@@ -0,0 +1,3 @@
+-- A claimed delivery is leased until claimed_until; it is null while the delivery waits in the
+-- outbox. Digest coalescing only picks up deliveries that are neither leased nor being retried.
+ALTER TABLE notification_deliveries ADD COLUMN claimed_until TIMESTAMP(6);
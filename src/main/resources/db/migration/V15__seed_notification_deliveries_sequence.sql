@@ -0,0 +1,10 @@
+-- V3 left the sequence at START WITH 1, so its first value was 1 and the JDBC batch path, which
+-- treats every value as the top of a block of 50 ids, handed out -48..1. Hibernate's pooled
+-- optimizer special-cases that first value and takes 1..50 from the next one, so the two writers
+-- could overlap. Seed it like V2 does: the next value clears both the current maximum id and
+-- anything already handed out by a full block.
+SELECT setval('notification_deliveries_seq',
+              GREATEST(COALESCE((SELECT MAX(id) FROM notification_deliveries), 0),
+                       (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM notification_deliveries_seq))
+                  + 50,
+              false);
@@ -0,0 +1,7 @@
+-- Like V15: V7 left the sequence at START WITH 1, so the first broadcast content row got id -48
+-- from the JDBC batch path. Seed it so that its next value is the top of a fresh block of 50.
+SELECT setval('notification_contents_seq',
+              GREATEST(COALESCE((SELECT MAX(id) FROM notification_contents), 0),
+                       (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM notification_contents_seq))
+                  + 50,
+              false);
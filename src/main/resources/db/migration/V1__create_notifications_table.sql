@@ -0,0 +1,11 @@
+-- Baseline schema, matching what ddl-auto produced before migrations were introduced
+CREATE TABLE IF NOT EXISTS notifications (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT       NOT NULL,
+    type        VARCHAR(255) NOT NULL,
+    title       VARCHAR(255) NOT NULL,
+    message     TEXT         NOT NULL,
+    is_read     BOOLEAN      NOT NULL,
+    email_sent  BOOLEAN      NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL
+);
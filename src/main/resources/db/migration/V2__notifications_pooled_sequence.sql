@@ -0,0 +1,10 @@
+-- Move notification ids from IDENTITY to a pooled sequence so Hibernate can batch inserts.
+-- The increment must match Notification.ID_ALLOCATION_SIZE.
+CREATE SEQUENCE IF NOT EXISTS notifications_seq START WITH 1 INCREMENT BY 50;
+
+-- The pooled optimizer treats each sequence value as the top of a block of 50 ids,
+-- so the next value has to clear the current maximum by a full block.
+SELECT setval('notifications_seq', COALESCE((SELECT MAX(id) FROM notifications), 0) + 50, false);
+
+ALTER TABLE notifications ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE notifications ALTER COLUMN id DROP DEFAULT;
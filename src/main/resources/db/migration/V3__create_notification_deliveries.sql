@@ -0,0 +1,22 @@
+-- Transactional outbox for external deliveries (email)
+CREATE SEQUENCE IF NOT EXISTS notification_deliveries_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE notification_deliveries (
+    id               BIGINT        PRIMARY KEY,
+    notification_id  BIGINT        NOT NULL,
+    user_id          BIGINT        NOT NULL,
+    channel          VARCHAR(32)   NOT NULL,
+    status           VARCHAR(32)   NOT NULL,
+    attempt_count    INTEGER       NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP(6)  NOT NULL,
+    last_error       VARCHAR(1000),
+    created_at       TIMESTAMP(6)  NOT NULL,
+    sent_at          TIMESTAMP(6),
+    CONSTRAINT uk_notification_deliveries_notification_channel UNIQUE (notification_id, channel)
+);
+
+-- Pollers only ever look at due pending rows
+CREATE INDEX idx_notification_deliveries_pending
+    ON notification_deliveries (next_attempt_at)
+    WHERE status = 'PENDING';
+
@@ -0,0 +1,3 @@
+-- Keyset pagination of a user's notifications, newest first
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created_id
+    ON notifications (user_id, created_at DESC, id DESC);
@@ -0,0 +1,12 @@
+-- Built CONCURRENTLY so writes keep flowing on large tables; Flyway runs this script outside a transaction.
+-- Listings by (user_id, created_at) are already served by idx_notifications_user_created_id (V4).
+
+-- findByUserIdAndIsReadFalse / countByUserIdAndIsReadFalse: only unread rows are indexed,
+-- so the index stays small however much read history accumulates
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_user_unread
+    ON notifications (user_id)
+    WHERE is_read = false;
+
+-- findByType
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_type_created
+    ON notifications (type, created_at);
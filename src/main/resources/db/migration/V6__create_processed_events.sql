@@ -0,0 +1,8 @@
+-- Keys of consumed events, so redelivered events are not turned into notifications twice
+CREATE TABLE processed_events (
+    event_key     VARCHAR(255)  PRIMARY KEY,
+    processed_at  TIMESTAMP(6)  NOT NULL
+);
+
+-- Retention purge deletes the oldest keys first
+CREATE INDEX idx_processed_events_processed_at ON processed_events (processed_at);
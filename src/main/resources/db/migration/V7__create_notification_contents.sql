@@ -0,0 +1,17 @@
+-- Broadcast text is stored once and referenced by every recipient's notification row.
+-- The increment must match NotificationContent.ID_ALLOCATION_SIZE.
+CREATE SEQUENCE IF NOT EXISTS notification_contents_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE notification_contents (
+    id          BIGINT        PRIMARY KEY,
+    title       VARCHAR(255)  NOT NULL,
+    message     TEXT          NOT NULL,
+    created_at  TIMESTAMP(6)  NOT NULL
+);
+
+-- Rows either carry their own text or point at shared content
+ALTER TABLE notifications ADD COLUMN content_id BIGINT;
+ALTER TABLE notifications ALTER COLUMN title DROP NOT NULL;
+ALTER TABLE notifications ALTER COLUMN message DROP NOT NULL;
+ALTER TABLE notifications ADD CONSTRAINT ck_notifications_text_or_content
+    CHECK (content_id IS NOT NULL OR (title IS NOT NULL AND message IS NOT NULL));
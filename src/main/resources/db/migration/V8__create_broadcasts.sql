@@ -0,0 +1,33 @@
+-- Fan-out-on-read broadcasts: one row per broadcast with its audience rule, merged into each
+-- user's notifications when read. The increment must match Broadcast.ID_ALLOCATION_SIZE.
+CREATE SEQUENCE IF NOT EXISTS broadcasts_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE broadcasts (
+    id          BIGINT        PRIMARY KEY,
+    type        VARCHAR(255)  NOT NULL,
+    content_id  BIGINT        NOT NULL,
+    audience    VARCHAR(32)   NOT NULL,
+    created_at  TIMESTAMP(6)  NOT NULL
+);
+
+-- Readers load the broadcasts of the visibility window
+CREATE INDEX idx_broadcasts_created_at ON broadcasts (created_at);
+
+-- Per-user state, written only once a user reads or dismisses a broadcast.
+-- Keyed by user first, so one user's receipts are a single index range.
+CREATE TABLE broadcast_receipts (
+    user_id       BIGINT        NOT NULL,
+    broadcast_id  BIGINT        NOT NULL,
+    read_at       TIMESTAMP(6),
+    dismissed_at  TIMESTAMP(6),
+    PRIMARY KEY (user_id, broadcast_id)
+);
+
+-- Broadcast emails are queued per recipient against the broadcast instead of a notification row
+ALTER TABLE notification_deliveries ALTER COLUMN notification_id DROP NOT NULL;
+ALTER TABLE notification_deliveries ADD COLUMN broadcast_id BIGINT;
+ALTER TABLE notification_deliveries ADD CONSTRAINT ck_notification_deliveries_source
+    CHECK (notification_id IS NOT NULL OR broadcast_id IS NOT NULL);
+CREATE UNIQUE INDEX uk_notification_deliveries_broadcast_user_channel
+    ON notification_deliveries (broadcast_id, user_id, channel)
+    WHERE broadcast_id IS NOT NULL;
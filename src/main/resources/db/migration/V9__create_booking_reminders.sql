@@ -0,0 +1,21 @@
+-- Check-in confirmations get their own type; CHECK_IN_REMINDER now means a reminder to check in.
+-- Databases created by ddl-auto may carry a check constraint listing the old enum values.
+ALTER TABLE notifications DROP CONSTRAINT IF EXISTS notifications_type_check;
+UPDATE notifications SET type = 'CHECK_IN_CONFIRMED' WHERE type = 'CHECK_IN_REMINDER';
+
+-- Pending reminders, one per booking and reminder type; a row is deleted when its reminder fires
+-- or the booking is canceled. Instances only hold the next window of rows in memory.
+CREATE TABLE booking_reminders (
+    booking_id   BIGINT        NOT NULL,
+    type         VARCHAR(255)  NOT NULL,
+    user_id      BIGINT        NOT NULL,
+    resource_id  BIGINT,
+    start_time   TIMESTAMP(6)  NOT NULL,
+    end_time     TIMESTAMP(6),
+    qr_code      VARCHAR(255),
+    fire_at      TIMESTAMP(6)  NOT NULL,
+    PRIMARY KEY (booking_id, type)
+);
+
+-- Window reloads and due claims scan by fire time
+CREATE INDEX idx_booking_reminders_fire_at ON booking_reminders (fire_at);
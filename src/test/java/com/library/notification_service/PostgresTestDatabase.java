@@ -0,0 +1,40 @@
+package com.library.notification_service;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+
+/**
+ * A PostgreSQL container migrated with the service's Flyway scripts, for tests of SQL that
+ * only a real database can check. Each test class starts its own container, so sequences
+ * and tables start out empty.
+ */
+public final class PostgresTestDatabase {
+
+	public static final String IMAGE = "postgres:16-alpine";
+
+	private PostgresTestDatabase() {
+	}
+
+	public static PostgreSQLContainer<?> container() {
+		return new PostgreSQLContainer<>(IMAGE);
+	}
+
+	/**
+	 * Apply all migrations to the container's database and return a JdbcTemplate on it
+	 */
+	public static JdbcTemplate migrate(PostgreSQLContainer<?> postgres) {
+		DataSource dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(),
+			postgres.getPassword());
+		Flyway.configure()
+			.dataSource(dataSource)
+			.locations("classpath:db/migration")
+			.load()
+			.migrate();
+		return new JdbcTemplate(dataSource);
+	}
+
+}
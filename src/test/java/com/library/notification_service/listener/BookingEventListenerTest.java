@@ -0,0 +1,118 @@
+package com.library.notification_service.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.notification_service.dto.BookingEvent;
+import com.library.notification_service.service.NotificationDraft;
+import com.library.notification_service.service.NotificationService;
+import com.library.notification_service.service.NotificationTemplateRegistry;
+import com.library.notification_service.service.ReminderScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Validation and deduplication keys of consumed booking events
+ */
+class BookingEventListenerTest {
+
+	private NotificationService notificationService;
+	private FailedMessageRecoverer failedMessageRecoverer;
+	private ReminderScheduler reminderScheduler;
+	private BookingEventListener listener;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		notificationService = mock(NotificationService.class);
+		failedMessageRecoverer = mock(FailedMessageRecoverer.class);
+		reminderScheduler = mock(ReminderScheduler.class);
+		listener = new BookingEventListener(notificationService, failedMessageRecoverer,
+			new ObjectMapper().findAndRegisterModules(),
+			new NotificationTemplateRegistry(new DefaultResourceLoader(), "", ""),
+			reminderScheduler);
+	}
+
+	@Test
+	void sendsEventsWithoutAnIdToTheDeadLetterPath() {
+		Message message = message("{\"userId\": 5, \"status\": \"CONFIRMED\"}", "m-1");
+
+		listener.handleBookingCreated(List.of(message));
+
+		verify(failedMessageRecoverer).recover(eq(message), isA(IllegalArgumentException.class));
+		verify(notificationService, never()).createNotifications(any(), any());
+	}
+
+	@Test
+	void keysEventsByStatusAndUpdateTime() {
+		listener.handleBookingCreated(List.of(message(
+			"{\"id\": 7, \"userId\": 5, \"status\": \"CONFIRMED\", \"updatedAt\": \"2026-03-10T09:00:00\"}", "m-1")));
+
+		assertEquals("booking.created:7:CONFIRMED:2026-03-10T09:00", drafts().get(0).eventKey());
+	}
+
+	@Test
+	void fallsBackToTheMessageIdWithoutStatusOrUpdateTime() {
+		listener.handleBookingCreated(List.of(
+			message("{\"id\": 7, \"userId\": 5}", "m-1"),
+			message("{\"id\": 7, \"userId\": 5, \"status\": \"CONFIRMED\"}", "m-2")));
+
+		List<NotificationDraft> drafts = drafts();
+		assertEquals("booking.created:7:message:m-1", drafts.get(0).eventKey());
+		assertEquals("booking.created:7:message:m-2", drafts.get(1).eventKey());
+	}
+
+	@Test
+	void skipsDeduplicationWithoutAnyIdentity() {
+		listener.handleBookingCreated(List.of(message("{\"id\": 7, \"userId\": 5}", null)));
+
+		assertNull(drafts().get(0).eventKey());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void updatesRemindersOfNewEventsOnly() {
+		listener.handleBookingCreated(List.of(
+			message("{\"id\": 7, \"userId\": 5}", null),
+			message("{\"id\": 8, \"userId\": 6}", null)));
+
+		ArgumentCaptor<List<NotificationDraft>> drafts = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<Consumer<List<NotificationDraft>>> onNew = ArgumentCaptor.forClass(Consumer.class);
+		verify(notificationService).createNotifications(drafts.capture(), onNew.capture());
+
+		// Both drafts have no key; each is still matched to its own event
+		onNew.getValue().accept(List.of(drafts.getValue().get(1)));
+
+		ArgumentCaptor<List<BookingEvent>> scheduled = ArgumentCaptor.forClass(List.class);
+		verify(reminderScheduler).schedule(scheduled.capture());
+		assertEquals(List.of(8L), scheduled.getValue().stream().map(BookingEvent::getId).toList());
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<NotificationDraft> drafts() {
+		ArgumentCaptor<List<NotificationDraft>> drafts = ArgumentCaptor.forClass(List.class);
+		verify(notificationService).createNotifications(drafts.capture(), any());
+		return drafts.getValue();
+	}
+
+	private static Message message(String body, String messageId) {
+		MessageProperties properties = new MessageProperties();
+		properties.setMessageId(messageId);
+		return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+	}
+
+}
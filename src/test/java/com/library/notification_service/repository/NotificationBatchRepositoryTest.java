@@ -0,0 +1,68 @@
+package com.library.notification_service.repository;
+
+import com.library.notification_service.PostgresTestDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Id allocation of the JDBC batch path on a freshly migrated database
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationBatchRepositoryTest {
+
+	@Container
+	static PostgreSQLContainer<?> postgres = PostgresTestDatabase.container();
+
+	private static JdbcTemplate jdbcTemplate;
+	private static NotificationBatchRepository batchRepository;
+
+	@BeforeAll
+	static void migrate() {
+		jdbcTemplate = PostgresTestDatabase.migrate(postgres);
+		batchRepository = new NotificationBatchRepository(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate));
+	}
+
+	@Test
+	void deliveryIdsStartAtOneAndDoNotOverlapHibernateBlocks() {
+		LocalDateTime now = LocalDateTime.now();
+		List<Long> notificationIds = LongStream.rangeClosed(1, 60).boxed().toList();
+
+		// The first allocation on the empty sequence gets 1..N
+		batchRepository.insertEmailDeliveries(notificationIds.subList(0, 30), notificationIds.subList(0, 30), now, now);
+		assertEquals(LongStream.rangeClosed(1, 30).boxed().toList(), deliveryIds());
+
+		// The next one starts a new block, past what a Hibernate allocation in between could take
+		Long hibernateHi = jdbcTemplate.queryForObject("SELECT nextval('notification_deliveries_seq')", Long.class);
+		batchRepository.insertEmailDeliveries(notificationIds.subList(30, 60), notificationIds.subList(30, 60), now, now);
+		List<Long> ids = deliveryIds();
+		assertEquals(60, ids.size());
+		assertEquals(hibernateHi + 1, ids.get(30));
+	}
+
+	@Test
+	void firstContentRowGetsIdOne() {
+		Long first = batchRepository.insertContent("New Booking Policy", "A new booking policy has been implemented.",
+			LocalDateTime.now());
+		Long second = batchRepository.insertContent("Booking Policy Updated", "A booking policy has been updated.",
+			LocalDateTime.now());
+
+		assertEquals(1L, first);
+		assertEquals(51L, second);
+	}
+
+	private List<Long> deliveryIds() {
+		return jdbcTemplate.queryForList("SELECT id FROM notification_deliveries ORDER BY id", Long.class);
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.library.notification_service.repository;
+
+import com.library.notification_service.PostgresTestDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Claims of the same events by concurrent consumers, each in its own transaction
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ProcessedEventRepositoryTest {
+
+	private static final int CONSUMERS = 8;
+
+	@Container
+	static PostgreSQLContainer<?> postgres = PostgresTestDatabase.container();
+
+	private static JdbcTemplate jdbcTemplate;
+	private static ProcessedEventRepository processedEventRepository;
+	private static TransactionTemplate transactionTemplate;
+
+	@BeforeAll
+	static void migrate() {
+		jdbcTemplate = PostgresTestDatabase.migrate(postgres);
+		processedEventRepository = new ProcessedEventRepository(jdbcTemplate);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+	}
+
+	@Test
+	void concurrentRedeliveriesCreateOneNotification() throws Exception {
+		String key = "booking.created:7:CONFIRMED:2026-03-10T09:00";
+		CyclicBarrier start = new CyclicBarrier(CONSUMERS);
+
+		List<Set<String>> claims = runConcurrently(consumer -> () -> transactionTemplate.execute(status -> {
+			await(start);
+			Set<String> claimed = processedEventRepository.claim(List.of(key), LocalDateTime.now());
+			if (claimed.contains(key)) {
+				jdbcTemplate.update("INSERT INTO notifications (id, user_id, type, title, message, is_read, email_sent, created_at) " +
+					"VALUES (nextval('notifications_seq'), 5, 'BOOKING_CONFIRMED', 'Booking Confirmed', '', false, false, LOCALTIMESTAMP)");
+			}
+			return claimed;
+		}));
+
+		assertEquals(1, claims.stream().filter(claimed -> claimed.contains(key)).count());
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications WHERE user_id = 5", Integer.class));
+	}
+
+	@Test
+	void overlappingBatchesClaimEachKeyOnce() throws Exception {
+		CyclicBarrier start = new CyclicBarrier(CONSUMERS);
+
+		// Each batch shares keys with its neighbours, listed in a different order
+		List<Set<String>> claims = runConcurrently(consumer -> () -> transactionTemplate.execute(status -> {
+			List<String> keys = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				keys.add("booking.canceled:" + (consumer * 10 + i));
+			}
+			if (consumer % 2 == 1) {
+				Collections.reverse(keys);
+			}
+			await(start);
+			return processedEventRepository.claim(keys, LocalDateTime.now());
+		}));
+
+		int expectedKeys = (CONSUMERS - 1) * 10 + 20;
+		assertEquals(expectedKeys, claims.stream().mapToInt(Set::size).sum());
+		assertEquals(expectedKeys, jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM processed_events WHERE event_key LIKE 'booking.canceled:%'", Integer.class));
+	}
+
+	private static <T> List<T> runConcurrently(ConsumerTask<T> task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(CONSUMERS);
+		try {
+			List<Future<T>> futures = new ArrayList<>();
+			for (int consumer = 0; consumer < CONSUMERS; consumer++) {
+				futures.add(executor.submit(task.forConsumer(consumer)));
+			}
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) {
+				results.add(future.get(30, TimeUnit.SECONDS));
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void await(CyclicBarrier barrier) {
+		try {
+			barrier.await(10, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private interface ConsumerTask<T> {
+		Callable<T> forConsumer(int consumer);
+	}
+
+}
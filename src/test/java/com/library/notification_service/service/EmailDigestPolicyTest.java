@@ -0,0 +1,67 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.entity.NotificationType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmailDigestPolicyTest {
+
+	private static final LocalDateTime QUEUED_AT = LocalDateTime.of(2026, 3, 10, 9, 30);
+
+	private final EmailDigestPolicy policy = new EmailDigestPolicy(120,
+		List.of(NotificationType.BOOKING_REMINDER),
+		List.of(NotificationType.POLICY_UPDATED),
+		"08:00",
+		300);
+
+	@Test
+	void holdsEmailsForTheCoalescingWindow() {
+		assertEquals(QUEUED_AT.plusSeconds(120), policy.firstAttemptAt(NotificationType.BOOKING_CONFIRMED, QUEUED_AT));
+	}
+
+	@Test
+	void sendsImmediateTypesRightAway() {
+		assertEquals(QUEUED_AT, policy.firstAttemptAt(NotificationType.BOOKING_REMINDER, QUEUED_AT));
+	}
+
+	@Test
+	void holdsDailyTypesUntilTheNextSendTime() {
+		LocalDateTime early = LocalDateTime.of(2026, 3, 10, 7, 15);
+
+		assertEquals(LocalDateTime.of(2026, 3, 10, 8, 0), policy.firstAttemptAt(NotificationType.POLICY_UPDATED, early));
+		assertEquals(LocalDateTime.of(2026, 3, 11, 8, 0), policy.firstAttemptAt(NotificationType.POLICY_UPDATED, QUEUED_AT));
+		assertEquals(LocalDateTime.of(2026, 3, 11, 8, 0),
+			policy.firstAttemptAt(NotificationType.POLICY_UPDATED, LocalDateTime.of(2026, 3, 10, 8, 0)));
+	}
+
+	@Test
+	void coalescesPendingEmailsDueWithinTheWindow() {
+		assertEquals(QUEUED_AT.plusSeconds(120), policy.coalesceUntil(QUEUED_AT));
+	}
+
+	@Test
+	void noWindowSendsEachEmailWhenQueued() {
+		EmailDigestPolicy immediate = new EmailDigestPolicy(0, List.of(), List.of(), "08:00", 300);
+
+		assertEquals(QUEUED_AT, immediate.firstAttemptAt(NotificationType.BOOKING_CONFIRMED, QUEUED_AT));
+		assertEquals(QUEUED_AT, immediate.coalesceUntil(QUEUED_AT));
+	}
+
+	@Test
+	void rejectsNegativeWindow() {
+		assertThrows(IllegalArgumentException.class,
+			() -> new EmailDigestPolicy(-1, List.of(), List.of(), "08:00", 300));
+	}
+
+	@Test
+	void rejectsWindowNotShorterThanTheLease() {
+		assertThrows(IllegalArgumentException.class,
+			() -> new EmailDigestPolicy(300, List.of(), List.of(), "08:00", 300));
+	}
+
+}
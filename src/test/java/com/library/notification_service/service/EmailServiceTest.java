@@ -0,0 +1,145 @@
+package com.library.notification_service.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch sending against an in-process SMTP server
+ */
+class EmailServiceTest {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	private static final OutboundEmail FIRST = new OutboundEmail(1L, "Booking Confirmed", "Your booking has been confirmed!");
+	private static final OutboundEmail SECOND = new OutboundEmail(2L, "Upcoming Booking", "Your booking starts soon.");
+
+	private RecipientAddressResolver addressResolver;
+
+	@BeforeEach
+	void setUp() {
+		addressResolver = mock(RecipientAddressResolver.class);
+		when(addressResolver.resolve(any())).thenReturn(Map.of(1L, "ann@library.edu", 2L, "bob@library.edu"));
+	}
+
+	@Test
+	void sendsEveryEmailOfTheBatch() throws Exception {
+		EmailService emailService = emailService(ServerSetupTest.SMTP.getPort(), rateLimiter(100, 2000));
+
+		Map<OutboundEmail, Exception> failures = emailService.sendNotificationEmails(List.of(FIRST, SECOND));
+
+		assertTrue(failures.isEmpty());
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertEquals(2, received.length);
+		Map<String, MimeMessage> bySubject = Arrays.stream(received)
+			.collect(Collectors.toMap(EmailServiceTest::subject, message -> message));
+		MimeMessage confirmed = bySubject.get("Booking Confirmed");
+		assertEquals("ann@library.edu", confirmed.getAllRecipients()[0].toString());
+		assertEquals("noreply@library-system.edu", confirmed.getFrom()[0].toString());
+		assertEquals("Your booking has been confirmed!", GreenMailUtil.getBody(confirmed).trim());
+		assertEquals("bob@library.edu", bySubject.get("Upcoming Booking").getAllRecipients()[0].toString());
+	}
+
+	@Test
+	void reportsUsersWithoutAnAddress() {
+		when(addressResolver.resolve(any())).thenReturn(Map.of(2L, "bob@library.edu"));
+		EmailService emailService = emailService(ServerSetupTest.SMTP.getPort(), rateLimiter(100, 2000));
+
+		Map<OutboundEmail, Exception> failures = emailService.sendNotificationEmails(List.of(FIRST, SECOND));
+
+		assertEquals(Set.of(FIRST), failures.keySet());
+		assertInstanceOf(IllegalStateException.class, failures.get(FIRST));
+		assertEquals(1, greenMail.getReceivedMessages().length);
+	}
+
+	@Test
+	void reportsEmailsHeldBackByTheRateLimiter() {
+		// One token and practically no refill: the second email cannot be sent without waiting
+		EmailService emailService = emailService(ServerSetupTest.SMTP.getPort(), rateLimiter(1, 0));
+
+		Map<OutboundEmail, Exception> failures = emailService.sendNotificationEmails(List.of(FIRST, SECOND));
+
+		assertEquals(Set.of(SECOND), failures.keySet());
+		assertInstanceOf(EmailThrottledException.class, failures.get(SECOND));
+		assertEquals(1, greenMail.getReceivedMessages().length);
+	}
+
+	@Test
+	void failsTheWholeBatchWhenAddressesCannotBeResolved() {
+		when(addressResolver.resolve(any())).thenThrow(new IllegalStateException("user service down"));
+		EmailService emailService = emailService(ServerSetupTest.SMTP.getPort(), rateLimiter(100, 2000));
+
+		Map<OutboundEmail, Exception> failures = emailService.sendNotificationEmails(List.of(FIRST, SECOND));
+
+		assertEquals(Set.of(FIRST, SECOND), failures.keySet());
+		assertEquals(0, greenMail.getReceivedMessages().length);
+	}
+
+	@Test
+	void failsTheWholeBatchWhenTheServerIsUnreachable() throws IOException {
+		int closedPort;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			closedPort = socket.getLocalPort();
+		}
+		EmailService emailService = emailService(closedPort, rateLimiter(100, 2000));
+
+		Map<OutboundEmail, Exception> failures = emailService.sendNotificationEmails(List.of(FIRST, SECOND));
+
+		assertEquals(Set.of(FIRST, SECOND), failures.keySet());
+	}
+
+	@Test
+	void onlyLogsWhenSendingIsDisabled() {
+		EmailService emailService = emailService(ServerSetupTest.SMTP.getPort(), rateLimiter(100, 2000));
+		ReflectionTestUtils.setField(emailService, "emailEnabled", false);
+
+		assertTrue(emailService.sendNotificationEmails(List.of(FIRST, SECOND)).isEmpty());
+		assertEquals(0, greenMail.getReceivedMessages().length);
+	}
+
+	private EmailService emailService(int port, EmailRateLimiter rateLimiter) {
+		JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("localhost");
+		mailSender.setPort(port);
+		EmailService emailService = new EmailService(mailSender, addressResolver, rateLimiter);
+		ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@library-system.edu");
+		ReflectionTestUtils.setField(emailService, "emailEnabled", true);
+		return emailService;
+	}
+
+	private static EmailRateLimiter rateLimiter(double burst, long maxWaitMs) {
+		return new EmailRateLimiter(new SimpleMeterRegistry(), true, 0.001, burst, 0.001, burst, maxWaitMs, 10);
+	}
+
+	private static String subject(MimeMessage message) {
+		try {
+			return message.getSubject();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.library.notification_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+	@Test
+	void rejectsKeysDueWithinTheCurrentTick() {
+		HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+
+		assertFalse(wheel.add("past", -5));
+		assertFalse(wheel.add("now", 9));
+		assertTrue(wheel.add("next", 10));
+	}
+
+	@Test
+	void firesKeysWhenTheirTickComesUp() {
+		HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+		wheel.add("a", 15);
+		wheel.add("b", 35);
+		wheel.add("c", 35);
+
+		List<String> fired = new ArrayList<>();
+		wheel.advance(29, (key, dueAtMs) -> fired.add(key));
+		assertEquals(List.of("a"), fired);
+
+		fired.clear();
+		wheel.advance(30, (key, dueAtMs) -> fired.add(key));
+		assertEquals(List.of("b", "c"), fired);
+
+		fired.clear();
+		wheel.advance(1000, (key, dueAtMs) -> fired.add(key));
+		assertTrue(fired.isEmpty());
+	}
+
+	@Test
+	void cascadesKeysFromOverflowLevels() {
+		// 4 buckets of 10 ms: 1000 ms is three overflow levels out
+		HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 0);
+		wheel.add("far", 1000);
+		wheel.add("near", 25);
+
+		List<String> fired = new ArrayList<>();
+		List<Long> dueTimes = new ArrayList<>();
+		wheel.advance(999, (key, dueAtMs) -> fired.add(key));
+		assertEquals(List.of("near"), fired);
+
+		fired.clear();
+		wheel.advance(1000, (key, dueAtMs) -> {
+			fired.add(key);
+			dueTimes.add(dueAtMs);
+		});
+		assertEquals(List.of("far"), fired);
+		assertEquals(List.of(1000L), dueTimes);
+	}
+
+	@Test
+	void firesEveryKeyOnceInDueOrder() {
+		HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(10, 16, 0);
+		for (int i = 1; i <= 500; i++) {
+			assertTrue(wheel.add(i, i * 37L));
+		}
+
+		List<Integer> fired = new ArrayList<>();
+		for (long now = 0; now <= 500 * 37L; now += 100) {
+			wheel.advance(now, (key, dueAtMs) -> fired.add(key));
+		}
+		wheel.advance(500 * 37L, (key, dueAtMs) -> fired.add(key));
+
+		assertEquals(500, fired.size());
+		for (int i = 1; i < fired.size(); i++) {
+			assertTrue(fired.get(i - 1) < fired.get(i), "out of order at " + i);
+		}
+	}
+
+	@Test
+	void keyAddedAfterAdvancingFiresRelativeToTheNewTime() {
+		HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 0);
+		wheel.advance(500, (key, dueAtMs) -> {});
+		wheel.add("late", 530);
+
+		Map<String, Long> fired = new HashMap<>();
+		wheel.advance(529, fired::put);
+		assertTrue(fired.isEmpty());
+		wheel.advance(530, fired::put);
+		assertEquals(Map.of("late", 530L), fired);
+	}
+
+	@Test
+	void rejectsInvalidDimensions() {
+		assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<String>(0, 8, 0));
+		assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<String>(10, 1, 0));
+	}
+
+}
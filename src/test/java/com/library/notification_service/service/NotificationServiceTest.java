@@ -0,0 +1,200 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.dto.NotificationPage;
+import com.library.notification_service.dto.NotificationSummary;
+import com.library.notification_service.entity.NotificationType;
+import com.library.notification_service.repository.NotificationBatchRepository;
+import com.library.notification_service.repository.NotificationDeliveryRepository;
+import com.library.notification_service.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cursor paging of getNotificationPage and event deduplication of createNotifications, against mocked repositories
+ */
+class NotificationServiceTest {
+
+	private static final Long USER_ID = 5L;
+	private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+	private NotificationRepository notificationRepository;
+	private ProcessedEventStore processedEventStore;
+	private NotificationService notificationService;
+
+	@BeforeEach
+	void setUp() {
+		notificationRepository = mock(NotificationRepository.class);
+		processedEventStore = mock(ProcessedEventStore.class);
+		notificationService = new NotificationService(notificationRepository,
+			mock(NotificationBatchRepository.class),
+			mock(NotificationDeliveryRepository.class),
+			mock(UserDirectoryClient.class),
+			mock(TransactionTemplate.class),
+			mock(ApplicationEventPublisher.class),
+			mock(UnreadCountCache.class),
+			processedEventStore,
+			mock(NotificationContentCache.class),
+			mock(BroadcastService.class),
+			mock(EmailDigestPolicy.class),
+			mock(NotificationPreferenceService.class));
+		ReflectionTestUtils.setField(notificationService, "maxPageSize", 100);
+		ReflectionTestUtils.setField(notificationService, "recentDays", 90L);
+	}
+
+	@Test
+	void firstPageEndsWithCursorOfItsLastItem() {
+		List<NotificationSummary> rows = summaries(LocalDateTime.of(2026, 3, 10, 12, 0, 30, 123_456_000), 4);
+		when(notificationRepository.findSummariesByUserId(eq(USER_ID), eq(HISTORY_START), eq(PageRequest.of(0, 4))))
+			.thenReturn(rows);
+
+		NotificationPage page = notificationService.getNotificationPage(USER_ID, null, 3, true);
+
+		assertEquals(rows.subList(0, 3), page.getItems());
+		NotificationSummary last = rows.get(2);
+		assertEquals(last.getCreatedAt() + "," + last.getId(), page.getNextCursor());
+	}
+
+	@Test
+	void lastPageHasNoCursor() {
+		List<NotificationSummary> rows = summaries(LocalDateTime.of(2026, 3, 10, 12, 0), 2);
+		when(notificationRepository.findSummariesByUserId(eq(USER_ID), eq(HISTORY_START), eq(PageRequest.of(0, 4))))
+			.thenReturn(rows);
+
+		NotificationPage page = notificationService.getNotificationPage(USER_ID, "", 3, true);
+
+		assertEquals(rows, page.getItems());
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	void cursorIsParsedBackIntoCreatedAtAndId() {
+		LocalDateTime createdAt = LocalDateTime.of(2026, 3, 10, 12, 0, 30, 123_456_000);
+		when(notificationRepository.findSummariesByUserIdBefore(any(), any(), any(), any(), any()))
+			.thenReturn(List.of());
+
+		notificationService.getNotificationPage(USER_ID, createdAt + ",42", 10, true);
+
+		verify(notificationRepository).findSummariesByUserIdBefore(USER_ID, HISTORY_START, createdAt, 42L,
+			PageRequest.of(0, 11));
+	}
+
+	@Test
+	void cursorRoundTripsWhenSecondsAreZero() {
+		// LocalDateTime.toString() leaves out zero seconds; the cursor must still parse
+		LocalDateTime createdAt = LocalDateTime.of(2026, 3, 10, 12, 0);
+		when(notificationRepository.findSummariesByUserId(any(), any(), any()))
+			.thenReturn(summaries(createdAt, 2));
+		when(notificationRepository.findSummariesByUserIdBefore(any(), any(), any(), any(), any()))
+			.thenReturn(List.of());
+
+		String cursor = notificationService.getNotificationPage(USER_ID, null, 1, true).getNextCursor();
+		notificationService.getNotificationPage(USER_ID, cursor, 1, true);
+
+		verify(notificationRepository).findSummariesByUserIdBefore(USER_ID, HISTORY_START, createdAt, 2L,
+			PageRequest.of(0, 2));
+	}
+
+	@Test
+	void recentListingStartsAtTheRecentWindow() {
+		when(notificationRepository.findSummariesByUserId(any(), any(), any())).thenReturn(List.of());
+		LocalDateTime before = LocalDateTime.now().minusDays(90);
+
+		notificationService.getNotificationPage(USER_ID, null, 10, false);
+
+		verify(notificationRepository).findSummariesByUserId(eq(USER_ID),
+			argThat(since -> !since.isBefore(before)
+				&& !since.isAfter(LocalDateTime.now().minusDays(90))),
+			eq(PageRequest.of(0, 11)));
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		for (String cursor : List.of("42", "yesterday,42", "2026-03-10T12:00,abc", "2026-03-10T12:00,")) {
+			assertThrows(IllegalArgumentException.class,
+				() -> notificationService.getNotificationPage(USER_ID, cursor, 10, true), cursor);
+		}
+		verifyNoInteractions(notificationRepository);
+	}
+
+	@Test
+	void rejectsLimitOutsideTheAllowedRange() {
+		assertThrows(IllegalArgumentException.class, () -> notificationService.getNotificationPage(USER_ID, null, 0, true));
+		assertThrows(IllegalArgumentException.class, () -> notificationService.getNotificationPage(USER_ID, null, 101, true));
+	}
+
+	@Test
+	void dropsEventsThatWereNotClaimed() {
+		NotificationDraft fresh = draft("booking.created:1:message:a");
+		NotificationDraft processed = draft("booking.created:2:message:b");
+		when(processedEventStore.claim(List.of(fresh.eventKey(), processed.eventKey())))
+			.thenReturn(new HashSet<>(Set.of(fresh.eventKey())));
+		List<NotificationDraft> seen = new ArrayList<>();
+
+		notificationService.createNotifications(List.of(fresh, processed), seen::addAll);
+
+		assertEquals(List.of(fresh), seen);
+	}
+
+	@Test
+	void dropsSecondCopyOfAnEventWithinTheBatch() {
+		NotificationDraft first = draft("booking.created:1:message:a");
+		NotificationDraft copy = draft("booking.created:1:message:a");
+		when(processedEventStore.claim(any())).thenReturn(new HashSet<>(Set.of(first.eventKey())));
+		List<NotificationDraft> seen = new ArrayList<>();
+
+		notificationService.createNotifications(List.of(first, copy), seen::addAll);
+
+		assertEquals(1, seen.size());
+		assertSame(first, seen.get(0));
+	}
+
+	@Test
+	void keepsDraftsWithoutAnEventKey() {
+		NotificationDraft unkeyed = draft(null);
+		NotificationDraft processed = draft("booking.created:2:message:b");
+		when(processedEventStore.claim(List.of(processed.eventKey()))).thenReturn(new HashSet<>());
+		List<NotificationDraft> seen = new ArrayList<>();
+
+		notificationService.createNotifications(List.of(unkeyed, processed), seen::addAll);
+
+		assertEquals(1, seen.size());
+		assertSame(unkeyed, seen.get(0));
+	}
+
+	private static NotificationDraft draft(String eventKey) {
+		return new NotificationDraft(USER_ID, NotificationType.BOOKING_CONFIRMED, "Booking Confirmed", "", eventKey);
+	}
+
+	private static List<NotificationSummary> summaries(LocalDateTime newest, int count) {
+		List<NotificationSummary> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			long id = count - i;
+			rows.add(new NotificationSummary(id, USER_ID, NotificationType.BOOKING_CONFIRMED, "Booking Confirmed",
+				false, newest.minusMinutes(i)));
+		}
+		return rows;
+	}
+
+}
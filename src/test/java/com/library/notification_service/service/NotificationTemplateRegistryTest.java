@@ -0,0 +1,82 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.entity.NotificationType;
+import com.library.notification_service.service.NotificationTemplateRegistry.BookingParameters;
+import com.library.notification_service.service.NotificationTemplateRegistry.PolicyParameters;
+import com.library.notification_service.service.NotificationTemplateRegistry.ResourceParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationTemplateRegistryTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void rendersBundledBookingTemplates() throws Exception {
+		NotificationTemplateRegistry registry = new NotificationTemplateRegistry(new DefaultResourceLoader(), "", "");
+
+		RenderedNotification rendered = registry.renderBooking(NotificationType.BOOKING_CONFIRMED, new BookingParameters(
+			7L, 3L, LocalDateTime.of(2026, 3, 10, 9, 0), LocalDateTime.of(2026, 3, 10, 11, 0), "QR-7", null));
+
+		assertEquals("Booking Confirmed", rendered.title());
+		assertTrue(rendered.message().contains("Booking ID: 7\n"));
+		assertTrue(rendered.message().contains("Start Time: 2026-03-10T09:00\n"));
+		assertTrue(rendered.message().contains("QR Code: QR-7\n"));
+	}
+
+	@Test
+	void leavesOutTheFloorLineWhenTheFloorIsUnknown() throws Exception {
+		NotificationTemplateRegistry registry = new NotificationTemplateRegistry(new DefaultResourceLoader(), "", "");
+
+		String withFloor = registry.renderResource(NotificationType.RESOURCE_CREATED,
+			new ResourceParameters(4L, "Room A", "Study Room", 2)).message();
+		String withoutFloor = registry.renderResource(NotificationType.RESOURCE_CREATED,
+			new ResourceParameters(4L, "Room A", "Study Room", null)).message();
+
+		assertTrue(withFloor.contains("Resource: Room A\nFloor: 2\n"));
+		assertFalse(withoutFloor.contains("Floor"));
+	}
+
+	@Test
+	void rejectsParametersOfAnotherFamily() throws Exception {
+		NotificationTemplateRegistry registry = new NotificationTemplateRegistry(new DefaultResourceLoader(), "", "");
+
+		assertThrows(IllegalArgumentException.class,
+			() -> registry.renderPolicy(NotificationType.BOOKING_CONFIRMED, PolicyParameters.removed(1L)));
+	}
+
+	@Test
+	void externalFileOverridesBundledWording() throws Exception {
+		Path external = directory.resolve("notifications.properties");
+		Files.writeString(external, "POLICY_DELETED.title=Policy {policyId} retired\n", StandardCharsets.UTF_8);
+		NotificationTemplateRegistry registry = new NotificationTemplateRegistry(new DefaultResourceLoader(), "",
+			external.toUri().toString());
+
+		RenderedNotification rendered = registry.renderPolicy(NotificationType.POLICY_DELETED, PolicyParameters.removed(9L));
+
+		assertEquals("Policy 9 retired", rendered.title());
+		assertTrue(rendered.message().contains("Policy ID: 9\n"));
+	}
+
+	@Test
+	void brokenExternalFileFailsStartup() throws Exception {
+		Path external = directory.resolve("notifications.properties");
+		Files.writeString(external, "POLICY_DELETED.title=Policy {bookingId}\n", StandardCharsets.UTF_8);
+
+		assertThrows(IllegalStateException.class, () -> new NotificationTemplateRegistry(new DefaultResourceLoader(), "",
+			external.toUri().toString()));
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.library.notification_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationTemplateTest {
+
+	private record Values(Long id, String name) {}
+
+	private static final Map<String, Function<Values, ?>> PARAMETERS = new LinkedHashMap<>();
+
+	static {
+		PARAMETERS.put("id", Values::id);
+		PARAMETERS.put("name", Values::name);
+	}
+
+	@Test
+	void rendersLiteralsAndParameters() {
+		NotificationTemplate<Values> template = NotificationTemplate.parse("Resource {id}: {name}.", PARAMETERS);
+
+		assertEquals("Resource 7: Room A.", template.render(new Values(7L, "Room A")));
+	}
+
+	@Test
+	void rendersTemplateWithoutPlaceholders() {
+		NotificationTemplate<Values> template = NotificationTemplate.parse("Booking Confirmed", PARAMETERS);
+
+		assertEquals("Booking Confirmed", template.render(new Values(1L, "x")));
+	}
+
+	@Test
+	void rendersRepeatedAndAdjacentPlaceholders() {
+		NotificationTemplate<Values> template = NotificationTemplate.parse("{id}{name}{id}", PARAMETERS);
+
+		assertEquals("3b3", template.render(new Values(3L, "b")));
+	}
+
+	@Test
+	void trimsPlaceholderNames() {
+		NotificationTemplate<Values> template = NotificationTemplate.parse("Hello { name }", PARAMETERS);
+
+		assertEquals("Hello Ann", template.render(new Values(1L, "Ann")));
+	}
+
+	@Test
+	void doubleBraceIsALiteralBrace() {
+		NotificationTemplate<Values> template = NotificationTemplate.parse("{{id} is {id}", PARAMETERS);
+
+		assertEquals("{id} is 5", template.render(new Values(5L, null)));
+	}
+
+	@Test
+	void nullValuesRenderAsNull() {
+		NotificationTemplate<Values> template = NotificationTemplate.parse("Policy: {name}", PARAMETERS);
+
+		assertEquals("Policy: null", template.render(new Values(1L, null)));
+	}
+
+	@Test
+	void rejectsUnknownPlaceholders() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+			() -> NotificationTemplate.parse("Hello {user}", PARAMETERS));
+
+		assertTrue(e.getMessage().contains("{user}"));
+		assertTrue(e.getMessage().contains("[id, name]"));
+	}
+
+	@Test
+	void rejectsUnclosedPlaceholders() {
+		assertThrows(IllegalArgumentException.class, () -> NotificationTemplate.parse("Hello {name", PARAMETERS));
+	}
+
+}
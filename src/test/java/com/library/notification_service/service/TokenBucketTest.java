@@ -0,0 +1,65 @@
+package com.library.notification_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBucketTest {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void startsFull() {
+		TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+		assertEquals(5, bucket.available(0));
+		assertEquals(0, bucket.nanosUntilAvailable(0));
+	}
+
+	@Test
+	void waitsForRefillOnceEmpty() {
+		TokenBucket bucket = new TokenBucket(10, 2, 0);
+		bucket.take();
+		bucket.take();
+
+		assertEquals(SECOND / 10, bucket.nanosUntilAvailable(0));
+		assertEquals(SECOND / 20, bucket.nanosUntilAvailable(SECOND / 20));
+		assertEquals(0, bucket.nanosUntilAvailable(SECOND / 10));
+	}
+
+	@Test
+	void refillStopsAtCapacity() {
+		TokenBucket bucket = new TokenBucket(10, 3, 0);
+		bucket.take();
+
+		assertEquals(3, bucket.available(60 * SECOND));
+	}
+
+	@Test
+	void permitsWithinCountsAvailableAndRefilledTokens() {
+		TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+		assertEquals(15, bucket.permitsWithin(0, SECOND));
+
+		for (int i = 0; i < 5; i++) {
+			bucket.take();
+		}
+		assertEquals(10, bucket.permitsWithin(0, SECOND));
+		assertEquals(5, bucket.permitsWithin(0, SECOND / 2));
+	}
+
+	@Test
+	void clockGoingBackDoesNotRemoveTokens() {
+		TokenBucket bucket = new TokenBucket(10, 5, SECOND);
+
+		assertEquals(5, bucket.available(0));
+	}
+
+	@Test
+	void rejectsInvalidRateOrCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 5, 0));
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0.5, 0));
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.library.notification_service.service;
+
+import com.library.notification_service.dto.NotificationResponse;
+import com.library.notification_service.dto.NotificationUpdate;
+import com.library.notification_service.entity.NotificationType;
+import com.library.notification_service.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Updates are applied once: to counts loaded before the change, never on top of a load that includes it
+ */
+class UnreadCountCacheTest {
+
+	private static final Long USER_ID = 5L;
+
+	private NotificationRepository notificationRepository;
+	private UnreadCountCache cache;
+
+	@BeforeEach
+	void setUp() {
+		notificationRepository = mock(NotificationRepository.class);
+		BroadcastService broadcastService = mock(BroadcastService.class);
+		cache = new UnreadCountCache(notificationRepository, broadcastService, mock(BroadcastAudienceResolver.class),
+			mock(NotificationPreferenceService.class), new SimpleMeterRegistry(), 1000, 30, 2000);
+	}
+
+	@Test
+	void adjustsACountLoadedBeforeTheChange() {
+		when(notificationRepository.countByUserIdAndIsReadFalse(USER_ID)).thenReturn(3L);
+		assertEquals(3, cache.get(USER_ID));
+
+		cache.apply(created(LocalDateTime.now().plusSeconds(10)));
+		cache.apply(NotificationUpdate.read(USER_ID, 2, false, LocalDateTime.now().plusSeconds(10)));
+
+		assertEquals(2, cache.get(USER_ID));
+		verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(USER_ID);
+	}
+
+	@Test
+	void reloadsACountThatMayAlreadyIncludeTheChange() {
+		// The count was loaded after the notification committed, so it already includes it
+		when(notificationRepository.countByUserIdAndIsReadFalse(USER_ID)).thenReturn(4L);
+		assertEquals(4, cache.get(USER_ID));
+
+		cache.apply(created(LocalDateTime.now()));
+
+		assertEquals(4, cache.get(USER_ID));
+		verify(notificationRepository, times(2)).countByUserIdAndIsReadFalse(USER_ID);
+	}
+
+	@Test
+	void reloadsOnReadsThatMayAlreadyBeIncluded() {
+		when(notificationRepository.countByUserIdAndIsReadFalse(USER_ID)).thenReturn(1L);
+		assertEquals(1, cache.get(USER_ID));
+
+		cache.apply(NotificationUpdate.read(USER_ID, 1, false, LocalDateTime.now().minusSeconds(1)));
+
+		assertEquals(1, cache.get(USER_ID));
+		verify(notificationRepository, times(2)).countByUserIdAndIsReadFalse(USER_ID);
+	}
+
+	@Test
+	void reloadsOnUpdatesWithoutAChangeTime() {
+		when(notificationRepository.countByUserIdAndIsReadFalse(USER_ID)).thenReturn(2L);
+		cache.get(USER_ID);
+
+		cache.apply(NotificationUpdate.read(USER_ID, 1, false, null));
+		cache.get(USER_ID);
+
+		verify(notificationRepository, times(2)).countByUserIdAndIsReadFalse(USER_ID);
+	}
+
+	@Test
+	void leavesUncachedUsersAlone() {
+		cache.apply(created(LocalDateTime.now().plusSeconds(10)));
+
+		when(notificationRepository.countByUserIdAndIsReadFalse(USER_ID)).thenReturn(1L);
+		assertEquals(1, cache.get(USER_ID));
+	}
+
+	@Test
+	void allReadResetsTheCount() {
+		when(notificationRepository.countByUserIdAndIsReadFalse(USER_ID)).thenReturn(7L);
+		cache.get(USER_ID);
+
+		cache.apply(NotificationUpdate.read(USER_ID, 7, true, LocalDateTime.now()));
+
+		assertEquals(0, cache.get(USER_ID));
+		verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(USER_ID);
+	}
+
+	private static NotificationUpdate created(LocalDateTime createdAt) {
+		return NotificationUpdate.created(new NotificationResponse(1L, USER_ID, NotificationType.BOOKING_CONFIRMED,
+			"Booking Confirmed", "Your booking has been confirmed!", false, false, createdAt));
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.library.notification_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Directory paging and caching against a stub user service
+ */
+class UserDirectoryClientTest {
+
+	private final Map<Integer, String> pages = new ConcurrentHashMap<>();
+	private final List<String> queries = new CopyOnWriteArrayList<>();
+	private final AtomicInteger requests = new AtomicInteger();
+	private HttpServer server;
+	private ThreadPoolTaskExecutor directoryExecutor;
+	private UserDirectoryClient client;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/api/users", exchange -> {
+			requests.incrementAndGet();
+			String query = exchange.getRequestURI().getQuery();
+			queries.add(query);
+			int page = Integer.parseInt(query.replaceAll(".*page=(\\d+).*", "$1"));
+			String body = pages.get(page);
+			byte[] bytes = (body != null ? body : "[]").getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		});
+		server.start();
+
+		directoryExecutor = new ThreadPoolTaskExecutor();
+		directoryExecutor.initialize();
+		client = new UserDirectoryClient(new RestTemplate(), new ObjectMapper(), directoryExecutor);
+		ReflectionTestUtils.setField(client, "userServiceUrl", "http://localhost:" + server.getAddress().getPort());
+		ReflectionTestUtils.setField(client, "pageSize", 2);
+		ReflectionTestUtils.setField(client, "cacheTtlSeconds", 300L);
+	}
+
+	@AfterEach
+	void tearDown() {
+		directoryExecutor.shutdown();
+		server.stop(0);
+	}
+
+	@Test
+	void readsAPlainArrayInOneRequest() {
+		pages.put(0, "[{\"id\": 1, \"role\": \"USER\", \"email\": \"a@library.edu\"},"
+			+ " {\"id\": 2, \"role\": \"ADMIN\", \"email\": \"b@library.edu\"},"
+			+ " {\"id\": 3, \"role\": \"USER\", \"email\": \"c@library.edu\"}]");
+
+		List<UserRecipient> users = client.getRecipients();
+
+		assertEquals(List.of(new UserRecipient(1L, "USER", "a@library.edu"),
+			new UserRecipient(2L, "ADMIN", "b@library.edu"),
+			new UserRecipient(3L, "USER", "c@library.edu")), users);
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	void followsSpringDataPagesUntilTheLastOne() {
+		pages.put(0, "{\"content\": [{\"id\": 1, \"email\": \"a@library.edu\"}, {\"id\": 2, \"email\": \"b@library.edu\"}],"
+			+ " \"totalElements\": 3, \"last\": false}");
+		pages.put(1, "{\"last\": true, \"content\": [{\"id\": 3, \"email\": \"c@library.edu\"}]}");
+
+		List<UserRecipient> users = client.getRecipients();
+
+		assertEquals(List.of(1L, 2L, 3L), users.stream().map(UserRecipient::id).toList());
+		assertEquals(List.of("page=0&size=2", "page=1&size=2"), queries);
+	}
+
+	@Test
+	void emptyPageEndsAListingWithoutLastFlag() {
+		pages.put(0, "{\"content\": [{\"id\": 1}, {\"id\": 2}]}");
+		pages.put(1, "{\"content\": [{\"id\": 3}]}");
+		pages.put(2, "{\"content\": []}");
+
+		assertEquals(3, client.getRecipients().size());
+		assertEquals(3, requests.get());
+	}
+
+	@Test
+	void keepsOnlyIdRoleAndEmail() {
+		pages.put(0, "[{\"id\": \"7\", \"name\": \"Ann\", \"address\": {\"city\": \"X\", \"zip\": [1, 2]},"
+			+ " \"roles\": [\"A\", {\"b\": 1}], \"role\": \"USER\", \"email\": null},"
+			+ " {\"id\": \"not-a-number\", \"email\": \"skipped@library.edu\"},"
+			+ " {\"email\": \"no-id@library.edu\"},"
+			+ " {\"id\": 8, \"email\": \"h@library.edu\"}]");
+
+		List<UserRecipient> users = client.getRecipients();
+
+		assertEquals(List.of(new UserRecipient(7L, "USER", null), new UserRecipient(8L, null, "h@library.edu")), users);
+	}
+
+	@Test
+	void rejectsAnUnexpectedResponse() {
+		pages.put(0, "\"users\"");
+
+		assertThrows(RuntimeException.class, () -> client.getRecipients());
+	}
+
+	@Test
+	void answersLookupsByIdFromTheCachedDirectory() {
+		pages.put(0, "[{\"id\": 1, \"email\": \"a@library.edu\"}, {\"id\": 2, \"email\": \"b@library.edu\"}]");
+
+		client.getRecipients();
+		List<UserRecipient> found = client.findByIds(List.of(2L, 99L, 1L));
+
+		assertEquals(List.of(2L, 1L), found.stream().map(UserRecipient::id).toList());
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	void reloadsAfterInvalidation() {
+		pages.put(0, "[{\"id\": 1, \"email\": \"a@library.edu\"}]");
+		client.getRecipients();
+
+		pages.put(0, "[{\"id\": 1, \"email\": \"a@library.edu\"}, {\"id\": 2, \"email\": \"b@library.edu\"}]");
+		assertEquals(1, client.findByIds(List.of(1L, 2L)).size());
+
+		client.invalidate();
+		assertEquals(2, client.findByIds(List.of(1L, 2L)).size());
+		assertEquals(2, requests.get());
+	}
+
+	@Test
+	void lookupServesTheStaleDirectoryWhileReloadingInTheBackground() throws InterruptedException {
+		pages.put(0, "[{\"id\": 1, \"email\": \"a@library.edu\"}]");
+		assertTrue(client.lookupByIds(List.of(1L, 2L)).current());
+
+		pages.put(0, "[{\"id\": 1, \"email\": \"a@library.edu\"}, {\"id\": 2, \"email\": \"b@library.edu\"}]");
+		client.invalidate();
+		UserDirectoryClient.Lookup stale = client.lookupByIds(List.of(1L, 2L));
+		assertEquals(1, stale.users().size());
+		assertFalse(stale.current());
+
+		UserDirectoryClient.Lookup reloaded = stale;
+		for (int i = 0; i < 100 && !reloaded.current(); i++) {
+			Thread.sleep(50);
+			reloaded = client.lookupByIds(List.of(1L, 2L));
+		}
+		assertTrue(reloaded.current());
+		assertEquals(2, reloaded.users().size());
+		assertEquals(2, requests.get());
+	}
+
+	@Test
+	void reloadsOnceTheCacheExpires() {
+		ReflectionTestUtils.setField(client, "cacheTtlSeconds", -1L);
+		pages.put(0, "[{\"id\": 1}]");
+
+		client.getRecipients();
+		client.getRecipients();
+
+		assertEquals(2, requests.get());
+	}
+
+}